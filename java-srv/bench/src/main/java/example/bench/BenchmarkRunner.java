@@ -0,0 +1,22 @@
+package example.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result
+ * comes with its allocation rate (<code>gc.alloc.rate.norm</code> is
+ * bytes allocated per operation). Takes the usual JMH command line,
+ * e.g. <code>FormattingBenchmark -p rows=10000</code>.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -0,0 +1,27 @@
+package example.bench;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import example.db.print.output.IOutput;
+
+/**
+ * Output that hands everything to a JMH <code>Blackhole</code>.
+ */
+public class BlackholeOutput implements IOutput {
+
+  private final Blackhole bh;
+
+  public BlackholeOutput(Blackhole bh) {
+    this.bh = bh;
+  }
+
+  @Override
+  public void print(String str) {
+    bh.consume(str);
+  }
+
+  @Override
+  public void println(String str) {
+    bh.consume(str);
+  }
+}
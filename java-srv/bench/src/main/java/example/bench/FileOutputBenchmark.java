@@ -0,0 +1,97 @@
+package example.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import example.db.print.output.IOutput;
+import example.db.print.output.ToFile;
+import example.db.print.output.ToGzipFile;
+import example.db.print.output.ToMappedFile;
+
+/**
+ * Writing a dump of <code>lines</code> table rows to disk, one op per
+ * file: the buffered channel of {@link ToFile},
+ * the preallocated mapping of {@link ToMappedFile} and the block
+ * compression of {@link ToGzipFile} on {@link Gzip#gzipThreads}. Lines are
+ * handed over as <code>char[]</code> the way <code>RowRenderer</code>
+ * does. The files go to <code>java.io.tmpdir</code>, which should be
+ * on the same kind of disk as the real output. The original
+ * <code>Files.write(APPEND)</code> per line is in
+ * {@link FilesWriteAppendBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileOutputBenchmark {
+
+  @Param({"10000", "1000000"})
+  public int lines;
+
+  @Param({"80", "400"})
+  public int lineLength;
+
+  private Path dir;
+  private Path file;
+  private char[] line;
+
+  @Setup
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("file-output-bench");
+    file = dir.resolve("output.log");
+    line = new char[lineLength];
+    for (int i = 0; i < lineLength; i++) {
+      line[i] = i % 8 == 0 ? '|' : (char) ('a' + i % 26);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void toFile() {
+    write(new ToFile(file.toString(), ToFile.DEFAULT_BUFFER_SIZE, ToFile.DEFAULT_FLUSH_INTERVAL_MS, false));
+  }
+
+  @Benchmark
+  public void toMappedFile() {
+    write(new ToMappedFile(file.toString(), ToMappedFile.DEFAULT_SEGMENT_SIZE, false));
+  }
+
+  @Benchmark
+  public void toGzipFile(Gzip gzip) {
+    write(new ToGzipFile(file.toString() + ".gz", ToGzipFile.DEFAULT_BLOCK_SIZE, gzip.gzipThreads,
+        ToGzipFile.DEFAULT_LEVEL, false));
+  }
+
+  private void write(IOutput output) {
+    try (IOutput o = output) {
+      for (int i = 0; i < lines; i++) {
+        o.println(line, 0, line.length);
+      }
+    }
+  }
+
+  /**
+   * Parameters of {@link #toGzipFile} only, so the other outputs are
+   * not run once per thread count.
+   */
+  @State(Scope.Thread)
+  public static class Gzip {
+
+    @Param({"1", "4"})
+    public int gzipThreads;
+  }
+}
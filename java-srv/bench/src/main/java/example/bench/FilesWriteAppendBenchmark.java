@@ -0,0 +1,62 @@
+package example.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The baseline of {@link FileOutputBenchmark}: what <code>ToFile</code>
+ * used to do, open, append and close the file for every line, going
+ * through a <code>String</code> and a <code>byte[]</code>. Kept apart
+ * because it is only run with the smaller dumps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilesWriteAppendBenchmark {
+
+  @Param({"1000", "10000"})
+  public int lines;
+
+  @Param({"80", "400"})
+  public int lineLength;
+
+  private Path dir;
+  private Path file;
+  private char[] line;
+
+  @Setup
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("file-output-bench");
+    file = dir.resolve("output.log");
+    line = new char[lineLength];
+    for (int i = 0; i < lineLength; i++) {
+      line[i] = i % 8 == 0 ? '|' : (char) ('a' + i % 26);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void filesWriteAppend() throws IOException {
+    Files.write(file, new byte[0], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    for (int i = 0; i < lines; i++) {
+      String text = new String(line) + "\n";
+      Files.write(file, text.getBytes(), StandardOpenOption.APPEND);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package example.bench;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import example.db.print.Column;
+import example.db.print.DBResultsetPrint;
+import example.db.print.DBResultsetStream;
+import example.db.print.EOverflow;
+
+/**
+ * Formatting hot path: value conversion ({@link #addValue}), width
+ * tracking ({@link #adjustWidth}) and whole table prints. The cost of
+ * <code>DBResultsetPrint.printRows</code> is what {@link #printResultSet}
+ * spends on top of {@link #addValue}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormattingBenchmark {
+
+  private static final int MAX_TEXT_COL_WIDTH = 150;
+
+  @Param({"100", "10000"})
+  public int rows;
+
+  @Param({"4", "16"})
+  public int columns;
+
+  @Param({"INTEGER", "STRING", "DOUBLE", "DATETIME", "MIXED"})
+  public String mix;
+
+  private SyntheticTable table;
+
+  @Setup
+  public void setup() {
+    table = new SyntheticTable(rows, columns, mix, 42);
+  }
+
+  @Benchmark
+  public List<Column> addValue() throws SQLException {
+    List<Column> cols = table.newColumns();
+    ResultSet rs = table.open();
+    while (rs.next()) {
+      for (int i = 0; i < columns; i++) {
+        Column c = cols.get(i);
+        c.getTypeCategory().addValue(rs, c, MAX_TEXT_COL_WIDTH, i);
+      }
+    }
+    return cols;
+  }
+
+  @Benchmark
+  public List<Column> adjustWidth() {
+    List<Column> cols = table.newColumns();
+    for (int r = 0; r < rows; r++) {
+      for (int i = 0; i < columns; i++) {
+        String value = table.text(r, i);
+        cols.get(i).adjustWidth(value == null ? "NULL" : value);
+      }
+    }
+    return cols;
+  }
+
+  @Benchmark
+  public void printResultSet(Blackhole bh) {
+    DBResultsetPrint.printResultSet(table.open(), MAX_TEXT_COL_WIDTH, new BlackholeOutput(bh));
+  }
+
+  @Benchmark
+  public long streamResultSet(Blackhole bh) {
+    return DBResultsetStream.streamResultSet(table.open(), MAX_TEXT_COL_WIDTH,
+        DBResultsetStream.DEFAULT_SAMPLE_ROWS, EOverflow.TRUNCATE, new BlackholeOutput(bh));
+  }
+}
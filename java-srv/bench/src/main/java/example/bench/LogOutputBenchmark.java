@@ -0,0 +1,92 @@
+package example.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.*;
+
+import example.db.print.output.EFullPolicy;
+import example.db.print.output.IOutput;
+import example.db.print.output.ToAsyncLog;
+import example.db.print.output.ToLog;
+
+/**
+ * Time the export thread spends in <code>println</code> when the
+ * appender behind log4j takes <code>appendNanos</code> per line, for
+ * {@link ToLog} and for {@link ToAsyncLog} with each
+ * {@link EFullPolicy}. Run with <code>-t 4</code> to have several
+ * producers share the ring; <code>ToLog</code> is only meant for one
+ * thread, so leave SYNC out then.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogOutputBenchmark {
+
+  @Param({"0", "2000"})
+  public long appendNanos;
+
+  @Param({"SYNC", "BLOCK", "DROP", "SPILL"})
+  public String mode;
+
+  private IOutput output;
+
+  @Setup
+  public void setup() {
+    Logger root = Logger.getRootLogger();
+    root.removeAllAppenders();
+    root.setLevel(Level.INFO);
+    root.addAppender(new SlowAppender(appendNanos));
+    if ("SYNC".equals(mode)) {
+      output = new ToLog();
+    } else {
+      output = new ToAsyncLog(ToAsyncLog.DEFAULT_CAPACITY, EFullPolicy.valueOf(mode),
+          System.getProperty("java.io.tmpdir") + "/log-output-bench.spill");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    output.close();
+  }
+
+  @Benchmark
+  public void println() {
+    output.println("|  2 | Am Bulldog | Grey  |");
+  }
+
+  /**
+   * Stands in for a file appender by spinning for a fixed time.
+   */
+  static class SlowAppender extends AppenderSkeleton {
+
+    private final long nanos;
+
+    SlowAppender(long nanos) {
+      this.nanos = nanos;
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+      long start = System.nanoTime();
+      while (System.nanoTime() - start < nanos) {
+        Thread.onSpinWait();
+      }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean requiresLayout() {
+      return false;
+    }
+  }
+}
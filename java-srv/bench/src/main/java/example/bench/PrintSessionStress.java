@@ -0,0 +1,140 @@
+package example.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import example.db.print.DBResultsetStream;
+import example.db.print.EOverflow;
+import example.db.print.PrintScratch;
+import example.db.print.PrintSession;
+import example.db.print.output.IOutput;
+
+/**
+ * Has N threads print different synthetic tables at the same time and
+ * checks every print against the text the same table gives when it is
+ * printed alone. Half the prints go through one {@link PrintSession}
+ * shared by all threads, half through a session with a scratch of the
+ * thread's own; both the table and the streaming printers are used.
+ * Exits with status 1 when any print differs, which fails
+ * <code>mvn verify</code>.
+ *
+ * <pre>java -cp target/benchmarks.jar example.bench.PrintSessionStress [threads] [iterations]</pre>
+ */
+public class PrintSessionStress {
+
+  private static final String[] MIXES = {"INTEGER", "STRING", "DOUBLE", "DATETIME", "MIXED"};
+
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    PrintSession shared = new PrintSession();
+    List<SyntheticTable> tables = new ArrayList<>();
+    List<String[]> expected = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      // Different shapes so that any mix-up shows in the text
+      SyntheticTable table = new SyntheticTable(50 + 37 * t, 2 + t % 7, MIXES[t % MIXES.length], t);
+      tables.add(table);
+      expected.add(new String[] {print(shared, table), stream(shared, table)});
+    }
+
+    AtomicLong prints = new AtomicLong();
+    List<String> failures = new ArrayList<>();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int n = t;
+      Thread worker = new Thread(() -> {
+        PrintSession own = new PrintSession(PrintSession.DEFAULT_MAX_TEXT_COL_WIDTH,
+            DBResultsetStream.DEFAULT_SAMPLE_ROWS, EOverflow.TRUNCATE, new PrintScratch());
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < iterations; i++) {
+          PrintSession session = i % 2 == 0 ? shared : own;
+          check(n, i, "print", print(session, tables.get(n)), expected.get(n)[0], failures);
+          check(n, i, "stream", stream(session, tables.get(n)), expected.get(n)[1], failures);
+          prints.addAndGet(2);
+        }
+      }, "printer-" + t);
+      workers.add(worker);
+      worker.start();
+    }
+
+    long began = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long ms = (System.nanoTime() - began) / 1000000;
+
+    synchronized (failures) {
+      for (String failure : failures) {
+        System.out.println(failure);
+      }
+      System.out.println(prints.get() + " prints on " + threads + " threads in " + ms + " ms, "
+          + failures.size() + " mismatches");
+      if (!failures.isEmpty()) {
+        System.exit(1);
+      }
+    }
+  }
+
+  private static String print(PrintSession session, SyntheticTable table) {
+    CaptureOutput out = new CaptureOutput();
+    session.printResultSet(table.open(), null, out);
+    return out.toString();
+  }
+
+  private static String stream(PrintSession session, SyntheticTable table) {
+    CaptureOutput out = new CaptureOutput();
+    session.streamResultSet(table.open(), null, out);
+    return out.toString();
+  }
+
+  private static void check(int thread, int iteration, String what, String actual, String expected,
+                            List<String> failures) {
+    if (!expected.equals(actual)) {
+      synchronized (failures) {
+        failures.add("thread " + thread + " iteration " + iteration + ": " + what + " differs");
+      }
+    }
+  }
+
+  /**
+   * Keeps everything printed to it.
+   */
+  static class CaptureOutput implements IOutput {
+
+    private final StringBuilder sb = new StringBuilder();
+
+    @Override
+    public void print(String str) {
+      sb.append(str);
+    }
+
+    @Override
+    public void println(String str) {
+      sb.append(str).append('\n');
+    }
+
+    @Override
+    public void print(char[] buf, int offset, int length) {
+      sb.append(buf, offset, length);
+    }
+
+    @Override
+    public void println(char[] buf, int offset, int length) {
+      sb.append(buf, offset, length).append('\n');
+    }
+
+    @Override
+    public String toString() {
+      return sb.toString();
+    }
+  }
+}
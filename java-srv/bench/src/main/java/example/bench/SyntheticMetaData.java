@@ -0,0 +1,132 @@
+package example.bench;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Meta data of a {@link SyntheticTable}.
+ */
+class SyntheticMetaData implements ResultSetMetaData {
+
+  private final SyntheticTable table;
+
+  SyntheticMetaData(SyntheticTable table) {
+    this.table = table;
+  }
+
+  @Override
+  public int getColumnCount() {
+    return table.getColumnCount();
+  }
+
+  @Override
+  public boolean isAutoIncrement(int column) {
+    return false;
+  }
+
+  @Override
+  public boolean isCaseSensitive(int column) {
+    return false;
+  }
+
+  @Override
+  public boolean isSearchable(int column) {
+    return true;
+  }
+
+  @Override
+  public boolean isCurrency(int column) {
+    return false;
+  }
+
+  @Override
+  public int isNullable(int column) {
+    return columnNullable;
+  }
+
+  @Override
+  public boolean isSigned(int column) {
+    return table.getType(column - 1).isNumeric();
+  }
+
+  @Override
+  public int getColumnDisplaySize(int column) {
+    return table.getType(column - 1).getDisplaySize();
+  }
+
+  @Override
+  public String getColumnLabel(int column) {
+    return "c" + (column - 1);
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    return getColumnLabel(column);
+  }
+
+  @Override
+  public String getSchemaName(int column) {
+    return "";
+  }
+
+  @Override
+  public int getPrecision(int column) {
+    return getColumnDisplaySize(column);
+  }
+
+  @Override
+  public int getScale(int column) {
+    return 0;
+  }
+
+  @Override
+  public String getTableName(int column) {
+    return "synthetic";
+  }
+
+  @Override
+  public String getCatalogName(int column) {
+    return "";
+  }
+
+  @Override
+  public int getColumnType(int column) {
+    return table.getType(column - 1).getSqlType();
+  }
+
+  @Override
+  public String getColumnTypeName(int column) {
+    return table.getType(column - 1).getTypeName();
+  }
+
+  @Override
+  public boolean isReadOnly(int column) {
+    return true;
+  }
+
+  @Override
+  public boolean isWritable(int column) {
+    return false;
+  }
+
+  @Override
+  public boolean isDefinitelyWritable(int column) {
+    return false;
+  }
+
+  @Override
+  public String getColumnClassName(int column) {
+    return String.class.getName();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    return false;
+  }
+}
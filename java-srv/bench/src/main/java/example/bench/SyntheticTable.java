@@ -0,0 +1,208 @@
+package example.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import example.db.print.Column;
+
+/**
+ * Rows generated in memory so the printer can be driven without a
+ * database. Cells are kept as ASCII bytes and decoded on every
+ * <code>getString</code>, the way the MySQL text protocol is.
+ */
+public class SyntheticTable {
+
+  /**
+   * Column types a table can be made of.
+   */
+  public enum EType {
+    INTEGER(Types.INTEGER, "INT", 11, true),
+    STRING(Types.VARCHAR, "VARCHAR", 40, false),
+    DOUBLE(Types.DOUBLE, "DOUBLE", 22, true),
+    DATETIME(Types.TIMESTAMP, "DATETIME", 19, false);
+
+    private final int sqlType;
+    private final String typeName;
+    private final int displaySize;
+    private final boolean numeric;
+
+    EType(int sqlType, String typeName, int displaySize, boolean numeric) {
+      this.sqlType = sqlType;
+      this.typeName = typeName;
+      this.displaySize = displaySize;
+      this.numeric = numeric;
+    }
+
+    public int getSqlType() {
+      return sqlType;
+    }
+
+    public String getTypeName() {
+      return typeName;
+    }
+
+    public int getDisplaySize() {
+      return displaySize;
+    }
+
+    public boolean isNumeric() {
+      return numeric;
+    }
+  }
+
+  private static final double NULL_RATIO = 0.05;
+
+  private final EType[] types;
+  private final byte[][][] cells;
+
+  /**
+   * @param rows Number of rows
+   * @param columns Number of columns
+   * @param mix Name of an {@link EType} for a single type table, or
+   *            <code>MIXED</code> to cycle through all of them
+   * @param seed Seed of the value generator
+   */
+  public SyntheticTable(int rows, int columns, String mix, long seed) {
+    Random random = new Random(seed);
+    types = new EType[columns];
+    for (int i = 0; i < columns; i++) {
+      types[i] = "MIXED".equals(mix) ? EType.values()[i % EType.values().length] : EType.valueOf(mix);
+    }
+
+    cells = new byte[rows][columns][];
+    for (int r = 0; r < rows; r++) {
+      for (int i = 0; i < columns; i++) {
+        if (random.nextDouble() >= NULL_RATIO) {
+          cells[r][i] = generate(types[i], random).getBytes(StandardCharsets.ISO_8859_1);
+        }
+      }
+    }
+  }
+
+  private static String generate(EType type, Random random) {
+    switch (type) {
+      case INTEGER:
+        return Integer.toString(random.nextInt(2000000) - 1000000);
+      case DOUBLE:
+        return Double.toString((random.nextDouble() - 0.5) * 1e6);
+      case DATETIME:
+        return String.format(Locale.ROOT, "20%02d-%02d-%02d %02d:%02d:%02d", random.nextInt(30),
+            1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24),
+            random.nextInt(60), random.nextInt(60));
+      default:
+        StringBuilder sb = new StringBuilder();
+        int length = 3 + random.nextInt(38);
+        for (int i = 0; i < length; i++) {
+          sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+  }
+
+  public int getRowCount() {
+    return cells.length;
+  }
+
+  public int getColumnCount() {
+    return types.length;
+  }
+
+  public EType getType(int column) {
+    return types[column];
+  }
+
+  /**
+   * Returns the raw text of a cell, <code>null</code> for SQL NULL.
+   */
+  public String text(int row, int column) {
+    byte[] cell = cells[row][column];
+    return cell == null ? null : new String(cell, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Returns fresh {@link Column} objects for this table.
+   */
+  public List<Column> newColumns() {
+    SyntheticMetaData md = new SyntheticMetaData(this);
+    List<Column> columns = new ArrayList<>(types.length);
+    for (int i = 1; i <= types.length; i++) {
+      columns.add(new Column(md.getColumnLabel(i), md.getColumnType(i), md.getColumnTypeName(i)));
+    }
+    return columns;
+  }
+
+  /**
+   * Returns a new result set positioned before the first row.
+   */
+  public ResultSet open() {
+    return new Cursor();
+  }
+
+  private class Cursor extends UnsupportedResultSet {
+    private final SyntheticMetaData metaData = new SyntheticMetaData(SyntheticTable.this);
+    private int row = -1;
+    private boolean closed = false;
+    private boolean wasNull = false;
+
+    @Override
+    public boolean next() {
+      return ++row < cells.length;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+      return closed;
+    }
+
+    @Override
+    public java.sql.ResultSetMetaData getMetaData() {
+      return metaData;
+    }
+
+    @Override
+    public boolean wasNull() {
+      return wasNull;
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+      String value = text(row, columnIndex - 1);
+      wasNull = value == null;
+      return value;
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+      String value = getString(columnIndex);
+      return value == null ? 0 : Long.parseLong(value);
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+      String value = getString(columnIndex);
+      return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+      String value = getString(columnIndex);
+      return value == null ? 0 : Double.parseDouble(value);
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+      return getString(columnIndex);
+    }
+  }
+}
@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+
+# Starts the export from the shaded jar, for short scheduled runs.
+# Build it with: mvn -Pappcds package
+# The class data sharing archive saves loading and verifying classes,
+# C1 only and the serial collector save JIT and GC threads at startup.
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+
+exec java -XX:SharedArchiveFile="$DIR/target/app.jsa" -Xshare:auto \
+  -XX:TieredStopAtLevel=1 -XX:+UseSerialGC \
+  -jar "$DIR/target/example-0.0.1-SNAPSHOT.jar" "$@"
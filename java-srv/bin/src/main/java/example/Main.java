@@ -1,22 +1,126 @@
 package example;
 
-import org.apache.log4j.PropertyConfigurator;
+import org.apache.log4j.Logger;
 
 // Notice, do not import com.mysql.jdbc.*
 // or you will have problems!
 
 public class Main {
 
+  private static final Logger logger = Logger.getLogger(Main.class);
+
   public static void main(String[] args) {
-    PropertyConfigurator.configure("log4j.xml");
-    final String connectionStr = "jdbc:mysql://db/animal?user=maria&password=pass";
+    final Options options = Options.parse(args);
+    // Server side prepared statements, kept by the driver for as long
+    // as the pooled connection lives
+    final String connectionStr = "jdbc:mysql://db/animal?user=maria&password=pass"
+        + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=64&connectTimeout=5000";
+
+    if (options.getBoolean("metrics", false))
+      example.metrics.ExportMetrics.enable();
+
+    example.db.print.SchemaCache.setCheckIntervalMs(
+        options.getLong("schemaCheckIntervalMs", example.db.print.SchemaCache.DEFAULT_CHECK_INTERVAL_MS));
+
+    example.db.pool.ConnectionPool pool = example.db.pool.ConnectionPool.register(connectionStr, options);
+
+    // The materialized table is brought up to date and read
+    // instead of the view
+    final boolean materialized = options.getBoolean("materialized", false);
+    final String[] tables = options.get("tables",
+        "dog,breedLookup,colorLookup," + (materialized ? "dog_expanded_mv" : "dog_expanded")).split("\\s*,\\s*");
+
+    example.chain.DbReady.setTimeoutMs(options.getLong("readyTimeoutMs", example.chain.DbReady.DEFAULT_TIMEOUT_MS));
+    example.chain.DbReady.setTables(tables);
+    example.chain.DbReady.setChangeSet(options.get("readyChangeSet", example.chain.DbReady.DEFAULT_CHANGESET));
+    example.chain.PoolWarmUp.setConnections(Math.min(options.getInt("parallelism", 1), tables.length));
 
     example.chain.ILink obj = new example.chain.Driver();
 
-    if (obj.hasResource("com.mysql.cj.jdbc.Driver", connectionStr)){
-      example.db.print.output.IOutput output = new example.db.print.output.ToFile();
-      for ( String tbl : new String[]{"dog", "breedLookup", "colorLookup", "dog_expanded"})
-        example.db.DBQuery.query(connectionStr, tbl, output);
+    final boolean ready = obj.hasResource("com.mysql.cj.jdbc.Driver", connectionStr);
+    if (ready){
+      if (materialized)
+        new example.db.mv.DogExpandedRefresher(connectionStr,
+            options.getInt("refreshBatchSize", example.db.mv.DogExpandedRefresher.DEFAULT_BATCH_SIZE)).refresh();
+
+      final example.db.print.format.EFormat format = options.getEnum("format",
+          example.db.print.format.EFormat.class, example.db.print.format.EFormat.TABLE);
+
+      if (format == example.db.print.format.EFormat.TABLE) {
+        try (example.db.print.output.IOutput output = example.metrics.ExportMetrics.meter(
+            newOutput(options))) {
+          example.db.DBExport.export(connectionStr, tables, output, options);
+        }
+      } else {
+        // One file per table, <outputDir>/<table>.<csv|jsonl|bin>
+        final String outputDir = options.get("outputDir", "/root/log");
+        example.db.DBExport.export(connectionStr, tables,
+            table -> example.metrics.ExportMetrics.meter(
+                newFile(outputDir + "/" + table + "." + format.getExtension(), false, options)),
+            options);
+      }
+    } else {
+      logger.fatal("Nothing exported!");
+    }
+    logger.info("Connection pool " + pool.getStats());
+    if (example.metrics.ExportMetrics.isEnabled())
+      example.metrics.ExportMetrics.get().writeSummary(
+          options.get("metricsFile", example.metrics.ExportMetrics.DEFAULT_SUMMARY_FILE));
+    example.db.pool.ConnectionPool.shutdownAll();
+    // Lets the async appenders write out what they hold
+    org.apache.log4j.LogManager.shutdown();
+    if (!ready)
+      System.exit(1);
+  }
+
+  /**
+   * Where the table output goes: --output=file (default), segmented
+   * for numbered segment files with a table index, log for log4j on
+   * the export thread or asyncLog for log4j on a thread of its own.
+   * Files are named by --outputFile.
+   */
+  private static example.db.print.output.IOutput newOutput(Options options) {
+    final String filename = options.get("outputFile", example.db.print.output.ToFile.DEFAULT_FILENAME);
+    switch (options.get("output", "file")) {
+      case "log":
+        return new example.db.print.output.ToLog();
+      case "asyncLog":
+        return new example.db.print.output.ToAsyncLog(
+            options.getInt("logRingSize", example.db.print.output.ToAsyncLog.DEFAULT_CAPACITY),
+            options.getEnum("logFullPolicy", example.db.print.output.EFullPolicy.class,
+                example.db.print.output.EFullPolicy.BLOCK),
+            options.get("logSpillFile", example.db.print.output.ToAsyncLog.DEFAULT_SPILL_FILE));
+      case "segmented":
+        return new example.db.print.output.ToSegmentedFile(filename,
+            options.getLong("segmentMaxBytes", example.db.print.output.ToSegmentedFile.DEFAULT_MAX_BYTES),
+            options.getBoolean("segmentPerRun", false),
+            options.getInt("segmentKeep", 0),
+            options.getInt("fileBufferSize", example.db.print.output.ToFile.DEFAULT_BUFFER_SIZE),
+            options.getLong("fileFlushIntervalMs", example.db.print.output.ToFile.DEFAULT_FLUSH_INTERVAL_MS));
+      case "file":
+        return newFile(filename, true, options);
+      default:
+        logger.warn("Invalid value for output. Using default!");
+        return newFile(filename, true, options);
     }
   }
+
+  /**
+   * Opens <code>filename</code>.gz compressed on --gzipThreads threads
+   * with --gzip, <code>filename</code> through a mapping with
+   * --mappedFile, through a buffered channel otherwise.
+   */
+  private static example.db.print.output.IOutput newFile(String filename, boolean append, Options options) {
+    if (options.getBoolean("gzip", false))
+      return new example.db.print.output.ToGzipFile(filename + ".gz",
+          options.getInt("gzipBlockSize", example.db.print.output.ToGzipFile.DEFAULT_BLOCK_SIZE),
+          options.getInt("gzipThreads", Runtime.getRuntime().availableProcessors()),
+          options.getInt("gzipLevel", example.db.print.output.ToGzipFile.DEFAULT_LEVEL), append);
+    if (options.getBoolean("mappedFile", false))
+      return new example.db.print.output.ToMappedFile(filename,
+          options.getInt("fileSegmentSize", example.db.print.output.ToMappedFile.DEFAULT_SEGMENT_SIZE), append);
+    return new example.db.print.output.ToFile(filename,
+        options.getInt("fileBufferSize", example.db.print.output.ToFile.DEFAULT_BUFFER_SIZE),
+        options.getLong("fileFlushIntervalMs", example.db.print.output.ToFile.DEFAULT_FLUSH_INTERVAL_MS), append);
+  }
 }
@@ -0,0 +1,129 @@
+package example;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Command line options given as <code>--name=value</code> arguments.
+ * An option that is not on the command line falls back to the system
+ * property <code>export.name</code>, so it can also be set through
+ * <code>mvn exec:java -Dexport.name=value</code>.
+ */
+public class Options {
+
+  private static final Logger logger = Logger.getLogger(Options.class);
+
+  private static final String PROPERTY_PREFIX = "export.";
+
+  private final Map<String, String> values = new HashMap<>();
+
+  public static Options parse(String[] args)
+  {
+    Options options = new Options();
+    if (args == null)
+      return options;
+
+    for (String arg : args) {
+      if (!arg.startsWith("--")) {
+        logger.warn("Ignoring argument " + arg);
+        continue;
+      }
+      int eq = arg.indexOf('=');
+      if (eq < 0)
+        options.values.put(arg.substring(2), "true");
+      else
+        options.values.put(arg.substring(2, eq), arg.substring(eq + 1));
+    }
+    return options;
+  }
+
+  /**
+   * Returns every option set, on the command line or as a system
+   * property, as <code>--name=value</code> arguments sorted by name.
+   */
+  @Override
+  public String toString()
+  {
+    Map<String, String> all = new TreeMap<>();
+    for (String property : System.getProperties().stringPropertyNames()) {
+      if (property.startsWith(PROPERTY_PREFIX))
+        all.put(property.substring(PROPERTY_PREFIX.length()), System.getProperty(property));
+    }
+    all.putAll(values);
+    StringJoiner sj = new StringJoiner(" ");
+    for (Map.Entry<String, String> e : all.entrySet())
+      sj.add("--" + e.getKey() + "=" + e.getValue());
+    return sj.toString();
+  }
+
+  public String get(final String name, final String def)
+  {
+    String value = values.get(name);
+    if (value == null)
+      value = System.getProperty(PROPERTY_PREFIX + name);
+    return value == null ? def : value;
+  }
+
+  public int getInt(final String name, final int def)
+  {
+    String value = get(name, null);
+    if (value == null)
+      return def;
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid number for " + name + ". Using default!");
+      return def;
+    }
+  }
+
+  public long getLong(final String name, final long def)
+  {
+    String value = get(name, null);
+    if (value == null)
+      return def;
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid number for " + name + ". Using default!");
+      return def;
+    }
+  }
+
+  public double getDouble(final String name, final double def)
+  {
+    String value = get(name, null);
+    if (value == null)
+      return def;
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid number for " + name + ". Using default!");
+      return def;
+    }
+  }
+
+  public boolean getBoolean(final String name, final boolean def)
+  {
+    String value = get(name, null);
+    return value == null ? def : Boolean.parseBoolean(value.trim());
+  }
+
+  public <E extends Enum<E>> E getEnum(final String name, final Class<E> type, final E def)
+  {
+    String value = get(name, null);
+    if (value == null)
+      return def;
+    try {
+      return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      logger.warn("Invalid value for " + name + ". Using default!");
+      return def;
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package example.chain;
+
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits until the database can be exported: it accepts connections,
+ * the tables to export exist and Liquibase has run the changeset the
+ * export needs. The database and the migration may still be starting
+ * when the export does, so every check that fails is tried again
+ * after a jittered exponential backoff until the timeout runs out.
+ */
+public class DbReady implements ILink {
+
+  ILink next = new PoolWarmUp();
+
+  private static final Logger logger = Logger.getLogger(DbReady.class);
+
+  public static final long DEFAULT_TIMEOUT_MS = 60000;
+
+  /**
+   * Latest changeset of <code>liquibase-srv/db</code>.
+   */
+  public static final String DEFAULT_CHANGESET = "010";
+
+  private static final long INITIAL_BACKOFF_MS = 100;
+  private static final long MAX_BACKOFF_MS = 5000;
+
+  private static volatile long timeoutMs = DEFAULT_TIMEOUT_MS;
+  private static volatile String[] tables = new String[0];
+  private static volatile String changeSet = DEFAULT_CHANGESET;
+
+  /**
+   * Sets how long to wait for the database before giving up.
+   */
+  public static void setTimeoutMs(long ms) {
+    if (ms < 0) {
+      logger.warn("Invalid ready timeout. Using default!");
+      ms = DEFAULT_TIMEOUT_MS;
+    }
+    timeoutMs = ms;
+  }
+
+  /**
+   * Sets the tables, or views, that must exist.
+   */
+  public static void setTables(final String[] names) {
+    tables = names.clone();
+  }
+
+  /**
+   * Sets the id of the Liquibase changeset that must have run, empty
+   * to not look at the changelog.
+   */
+  public static void setChangeSet(final String id) {
+    changeSet = id == null ? "" : id;
+  }
+
+  @Override
+  public boolean hasResource(final String driverStr, final String connectionStr)
+  {
+    if(this.isReady(connectionStr))
+      return this.next.hasResource(driverStr, connectionStr);
+    else
+      return false;
+  }
+
+  private boolean isReady(final String connectionStr)
+  {
+    final long start = System.nanoTime();
+    final long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.run();
+
+    for (int attempt = 1; ; attempt++) {
+      String missing;
+      long t = metrics.start();
+      // The probe connection goes back to the pool on close
+      // and is reused by the export.
+      try (Connection conn = example.db.pool.ConnectionPool.of(connectionStr).borrow()) {
+        metrics.stop(example.metrics.EStage.CONNECT, t);
+        missing = missing(conn);
+      } catch (SQLException ex) {
+        missing = "connection (" + ex.getMessage() + ")";
+      }
+
+      long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      if (missing == null) {
+        logger.info("Success database ready after " + elapsedMs + " ms and " + attempt + " attempts.");
+        return true;
+      }
+
+      long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (left <= 0) {
+        logger.fatal("Fail database not ready after " + elapsedMs + " ms, missing " + missing + ".");
+        return false;
+      }
+      // Full jitter, so restarted exporters do not poll in step
+      long cap = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(attempt - 1, 16));
+      long sleep = Math.min(ThreadLocalRandom.current().nextLong(cap + 1), left);
+      logger.info("Database not ready, missing " + missing + ". Trying again in " + sleep + " ms.");
+      try {
+        Thread.sleep(sleep);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        logger.fatal("Fail interrupted waiting for the database.");
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Returns what the export needs and the database does not have yet,
+   * null when nothing is missing.
+   */
+  private static String missing(final Connection conn) throws SQLException
+  {
+    String[] expected = tables;
+    if (expected.length > 0) {
+      Set<String> absent = new LinkedHashSet<>(Arrays.asList(expected));
+      StringBuilder sql = new StringBuilder(
+          "SELECT TABLE_NAME FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME IN (");
+      for (int i = 0; i < expected.length; i++)
+        sql.append(i == 0 ? "?" : ", ?");
+      try (PreparedStatement stmt = conn.prepareStatement(sql.append(')').toString())) {
+        for (int i = 0; i < expected.length; i++)
+          stmt.setString(i + 1, expected[i]);
+        try (ResultSet rs = stmt.executeQuery()) {
+          while (rs.next())
+            absent.remove(rs.getString(1));
+        }
+      }
+      if (!absent.isEmpty())
+        return "tables " + absent;
+    }
+
+    String id = changeSet;
+    if (id.isEmpty())
+      return null;
+    try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM DATABASECHANGELOG WHERE ID = ?")) {
+      stmt.setString(1, id);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next() && rs.getLong(1) > 0 ? null : "changeset " + id;
+      }
+    } catch (SQLException ex) {
+      // No changelog table until Liquibase has started
+      return "changeset " + id + " (" + ex.getMessage() + ")";
+    }
+  }
+}
@@ -4,7 +4,7 @@ import org.apache.log4j.Logger;
 
 public class Driver implements ILink {
 
-  ILink next = new DbConnect();
+  ILink next = new DbReady();
 
   private static final Logger logger = Logger.getLogger(Driver.class);
 
@@ -21,9 +21,8 @@ public class Driver implements ILink {
   {
     boolean result = false;
     try {
-        // The newInstance() call is a work around for some
-        // broken Java implementations
-        Class.forName(driverStr).newInstance();
+        // Loading the class registers the driver, no instance needed
+        Class.forName(driverStr);
         result = true;
         logger.info("Success driver found.");
     } catch (Exception ex) {
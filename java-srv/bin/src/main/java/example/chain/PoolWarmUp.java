@@ -0,0 +1,35 @@
+package example.chain;
+
+import org.apache.log4j.Logger;
+
+import java.sql.SQLException;
+
+public class PoolWarmUp implements ILink {
+
+  private static final Logger logger = Logger.getLogger(PoolWarmUp.class);
+
+  private static volatile int connections = 0;
+
+  /**
+   * Sets how many connections the export will work with, so they are
+   * all open before it starts. The pool's min. idle count is opened
+   * when it is larger.
+   */
+  public static void setConnections(final int count) {
+    connections = count;
+  }
+
+  @Override
+  public boolean hasResource(final String driverStr, final String connectionStr)
+  {
+    example.db.pool.ConnectionPool pool = example.db.pool.ConnectionPool.of(connectionStr);
+    try {
+        int warm = pool.warmUp(Math.max(pool.getMinIdle(), connections));
+        logger.info("Success pool warmed up with " + warm + " connections.");
+    } catch (SQLException ex) {
+        // The database answered the probe, so carry on with a cold pool.
+        logger.warn("Pool warm up failed: " + ex.getMessage());
+    }
+    return true;
+  }
+}
@@ -0,0 +1,171 @@
+package example.db;
+
+import example.db.print.Watermark;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Where an incremental export (<code>--incremental=true</code>) got to
+ * in each table, kept between runs in a properties file.
+ *
+ * <p>A table's new {@link Watermark} is first staged, then committed
+ * once the rows it covers have been synced to the output. Committing
+ * rewrites the file through a temporary file that is synced and moved
+ * over the old one, so after a crash the file holds either the old or
+ * the new marks.</p>
+ *
+ * <p>Each commit also saves the length of the output, until the run
+ * finishes. When a run dies between syncing a table and committing it,
+ * the next run finds the output longer than that and cuts it back, see
+ * {@link #getOutputLength()}, so the rows are neither skipped nor
+ * repeated.</p>
+ */
+public class Checkpoint {
+
+  private static final Logger logger = Logger.getLogger(Checkpoint.class);
+
+  public static final String DEFAULT_FILE = "/root/log/checkpoint.properties";
+
+  private static final String KEY = ".key";
+  private static final String UPDATED_AT = ".updatedAt";
+  // Not a table name followed by one of the suffixes above
+  private static final String OUTPUT_LENGTH = "output.length";
+
+  private final Path file;
+  private final Properties marks = new Properties();
+  private final Map<String, Watermark> staged = new HashMap<>();
+
+  private Checkpoint(final Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads the marks saved in <code>filename</code>. A missing file
+   * means every table starts from the beginning.
+   */
+  public static Checkpoint load(final String filename) {
+    Checkpoint checkpoint = new Checkpoint(Paths.get(filename));
+    try (InputStream in = Files.newInputStream(checkpoint.file)) {
+      checkpoint.marks.load(in);
+    } catch (NoSuchFileException e) {
+      logger.info("No checkpoint file " + filename + ". Exporting every row!");
+    } catch (IOException e) {
+      logger.error("An error occurred while reading checkpoint file " + filename + ". Exporting every row!");
+      checkpoint.marks.clear();
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Returns where the last committed export of <code>table</code> got
+   * to, {@link Watermark#START} if none did.
+   */
+  public synchronized Watermark get(final String table) {
+    String key = marks.getProperty(table + KEY);
+    if (key == null)
+      return Watermark.START;
+    try {
+      return new Watermark(Long.parseLong(key), marks.getProperty(table + UPDATED_AT));
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid checkpoint for table " + table + ". Exporting every row!");
+      return Watermark.START;
+    }
+  }
+
+  /**
+   * Remembers where the export of <code>table</code> got to, to be
+   * saved by {@link #commit(String)}.
+   */
+  public synchronized void stage(final String table, final Watermark reached) {
+    staged.put(table, reached);
+  }
+
+  /**
+   * Returns the length the output had at the last commit of a run that
+   * did not finish, -1 if the last run finished or the output has no
+   * length. Anything after it was written by that run after its last
+   * commit and will be exported again.
+   */
+  public synchronized long getOutputLength() {
+    String length = marks.getProperty(OUTPUT_LENGTH);
+    if (length == null)
+      return -1;
+    try {
+      return Long.parseLong(length);
+    } catch (NumberFormatException e) {
+      logger.warn("Invalid output length in checkpoint. Not checking the output!");
+      return -1;
+    }
+  }
+
+  /**
+   * Saves the mark staged for <code>table</code>, if any, and the length
+   * of the output. Must only be called once the output holding its rows
+   * has been synced.
+   *
+   * @param outputLength Length of the output, -1 if it has none
+   */
+  public synchronized void commit(final String table, final long outputLength) {
+    Watermark reached = staged.remove(table);
+    if (reached == null && outputLength < 0)
+      return;
+    if (reached != null) {
+      marks.setProperty(table + KEY, Long.toString(reached.getKey()));
+      if (reached.getUpdatedAt() != null)
+        marks.setProperty(table + UPDATED_AT, reached.getUpdatedAt());
+      else
+        marks.remove(table + UPDATED_AT);
+    }
+    if (outputLength >= 0)
+      marks.setProperty(OUTPUT_LENGTH, Long.toString(outputLength));
+    save();
+  }
+
+  /**
+   * Drops the mark staged for <code>table</code>, whose rows did not all
+   * reach the output, so the next run exports them again.
+   */
+  public synchronized void discard(final String table) {
+    staged.remove(table);
+  }
+
+  /**
+   * Forgets the output length once every table has been committed, so
+   * the next run leaves whatever else is written to the output alone.
+   */
+  public synchronized void finish() {
+    if (marks.remove(OUTPUT_LENGTH) != null)
+      save();
+  }
+
+  private void save() {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+               StandardOpenOption.TRUNCATE_EXISTING)) {
+        OutputStream out = Channels.newOutputStream(channel);
+        marks.store(out, "Incremental export checkpoint");
+        out.flush();
+        channel.force(true);
+      }
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.error("An error occurred while writing checkpoint file " + file + ".");
+    }
+  }
+}
@@ -0,0 +1,318 @@
+package example.db;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Exports a list of tables, either one after another or, with
+ * <code>--parallelism=N</code>, on a pool of N threads. In parallel mode
+ * each table is printed into its own {@link example.db.print.output.ToBuffer}
+ * and the blocks are written to the output whole, in the order the
+ * tables were requested, as soon as every table before them is done.
+ * A block larger than <code>--spillChars</code> characters waits in a
+ * temporary file instead of in memory.
+ *
+ * <p>With <code>--incremental=true</code> only the rows added or changed
+ * since the last run are exported, see {@link Checkpoint}. A table's
+ * checkpoint is committed once its rows have been synced to the
+ * output. An output left longer than its last commit by a run that did
+ * not finish is cut back first, and the export refuses to run on one
+ * that cannot be cut.</p>
+ *
+ * <p>With <code>--cache=true</code> a table that has not changed since
+ * the last run is written from a {@link example.db.cache.RenderCache}
+ * instead of being queried and printed again.</p>
+ */
+public class DBExport {
+
+  private static final Logger logger = Logger.getLogger(DBExport.class);
+
+  /**
+   * Exports every table to an output of its own, opened by
+   * <code>outputs</code> from the table name and closed once the table
+   * is done. The tables do not wait on each other in parallel mode.
+   */
+  public static void export(final String connectionStr, final String[] tables,
+                            final Function<String, example.db.print.output.IOutput> outputs,
+                            final example.Options options)
+  {
+    if (options.getBoolean("incremental", false))
+      logger.warn("Incremental export only supports the table format. Exporting every row!");
+    int parallelism = Math.min(options.getInt("parallelism", 1), tables.length);
+    if (parallelism <= 1) {
+      for (String tbl : tables) {
+        try (example.db.print.output.IOutput output = outputs.apply(tbl)) {
+          DBQuery.query(connectionStr, tbl, output, options);
+        }
+      }
+      return;
+    }
+
+    ExecutorService executor = newExecutor(parallelism);
+    try {
+      List<Future<?>> done = new ArrayList<>(tables.length);
+      for (final String tbl : tables) {
+        done.add(executor.submit(() -> {
+          try (example.db.print.output.IOutput output = outputs.apply(tbl)) {
+            DBQuery.query(connectionStr, tbl, output, options);
+          }
+        }));
+      }
+      for (int i = 0; i < tables.length; i++) {
+        try {
+          done.get(i).get();
+        } catch (ExecutionException e) {
+          logger.error("Export of table " + tables[i] + " failed: " + e.getCause());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Export interrupted.");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public static void export(final String connectionStr, final String[] tables,
+                            final example.db.print.output.IOutput output, final example.Options options)
+  {
+    final Checkpoint checkpoint = options.getBoolean("incremental", false)
+        ? Checkpoint.load(options.get("checkpointFile", Checkpoint.DEFAULT_FILE)) : null;
+    if (checkpoint != null && !recover(checkpoint, output))
+      return;
+    final boolean positioned = checkpoint != null && output.getPosition() >= 0;
+    final example.db.cache.RenderCache cache = newCache(options, checkpoint != null);
+    int parallelism = Math.min(options.getInt("parallelism", 1), tables.length);
+    if (parallelism <= 1) {
+      for (String tbl : tables) {
+        long committed = checkpoint != null ? output.getPosition() : -1;
+        if (!query(connectionStr, tbl, output, options, checkpoint, cache))
+          discard(checkpoint, tbl, output, committed);
+        else if (!commit(checkpoint, tbl, output, positioned))
+          return;
+      }
+      finish(checkpoint);
+      logStats(cache);
+      return;
+    }
+
+    final long spillChars = options.getLong("spillChars", example.db.print.output.ToBuffer.DEFAULT_SPILL_CHARS);
+    ExecutorService executor = newExecutor(parallelism);
+    List<Future<example.db.print.output.ToBuffer>> blocks = new ArrayList<>(tables.length);
+    int next = 0;
+
+    try {
+      for (final String tbl : tables) {
+        blocks.add(executor.submit(() -> {
+          example.db.print.output.ToBuffer buffer = new example.db.print.output.ToBuffer(spillChars);
+          boolean printed;
+          try {
+            printed = query(connectionStr, tbl, buffer, options, checkpoint, cache);
+          } catch (RuntimeException | Error e) {
+            buffer.close();
+            throw e;
+          }
+          if (!printed && checkpoint != null || Thread.currentThread().isInterrupted()) {
+            // Its rows are exported again by the next run, or nobody
+            // is left to write them
+            buffer.close();
+            return null;
+          }
+          return buffer;
+        }));
+      }
+
+      for (; next < tables.length; next++) {
+        // Writes are counted against the table even though they
+        // happen on this thread
+        example.metrics.TableMetrics outer =
+            example.metrics.ExportMetrics.enter(example.metrics.ExportMetrics.table(tables[next]));
+        try {
+          try (example.db.print.output.ToBuffer buffer = blocks.get(next).get()) {
+            if (buffer == null) {
+              if (checkpoint != null)
+                checkpoint.discard(tables[next]);
+              continue;
+            }
+            buffer.writeTo(output);
+          }
+          if (!commit(checkpoint, tables[next], output, positioned))
+            return;
+        } catch (ExecutionException e) {
+          logger.error("Export of table " + tables[next] + " failed: " + e.getCause());
+        } finally {
+          example.metrics.ExportMetrics.enter(outer);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Export interrupted.");
+    } finally {
+      executor.shutdownNow();
+      closeDone(blocks, next);
+    }
+    finish(checkpoint);
+    logStats(cache);
+  }
+
+  /**
+   * Deletes the spill files of the blocks from <code>from</code> on
+   * that are done but will not be written.
+   */
+  private static void closeDone(final List<Future<example.db.print.output.ToBuffer>> blocks, final int from)
+  {
+    for (int i = from; i < blocks.size(); i++) {
+      Future<example.db.print.output.ToBuffer> block = blocks.get(i);
+      if (!block.isDone() || block.isCancelled())
+        continue;
+      try {
+        example.db.print.output.ToBuffer buffer = block.get();
+        if (buffer != null)
+          buffer.close();
+      } catch (ExecutionException | InterruptedException e) {
+        // The task closed its buffer when it failed
+      }
+    }
+  }
+
+  /**
+   * @return False when the table could not be read, possibly after some
+   *         of its rows were printed
+   */
+  private static boolean query(final String connectionStr, final String table,
+                               final example.db.print.output.IOutput output, final example.Options options,
+                               final Checkpoint checkpoint, final example.db.cache.RenderCache cache)
+  {
+    if (cache == null)
+      return DBQuery.query(connectionStr, table, output, options, checkpoint);
+    return cache.print(connectionStr, table, output, o -> DBQuery.query(connectionStr, table, o, options));
+  }
+
+  private static example.db.cache.RenderCache newCache(final example.Options options, final boolean incremental)
+  {
+    if (!options.getBoolean("cache", false))
+      return null;
+    if (incremental) {
+      logger.warn("The render cache does not work with incremental export. Not caching!");
+      return null;
+    }
+    return new example.db.cache.RenderCache(
+        options.get("cacheDir", example.db.cache.RenderCache.DEFAULT_DIR),
+        options.getLong("cacheMaxBytes", example.db.cache.RenderCache.DEFAULT_MAX_BYTES),
+        options.getEnum("cacheFingerprint", example.db.cache.EFingerprint.class, example.db.cache.EFingerprint.STATS),
+        options.toString());
+  }
+
+  private static void logStats(final example.db.cache.RenderCache cache)
+  {
+    if (cache != null)
+      logger.info("Render cache " + cache.getStats());
+  }
+
+  /**
+   * Syncs <code>output</code> and then saves the mark staged for
+   * <code>table</code> with the length of the output, never the other
+   * way round.
+   *
+   * @param positioned Whether the output had a length when the export
+   *                   started, losing it means it lost rows
+   * @return False when the output lost rows, and the export must stop
+   *         without committing or finishing so that the next run cuts
+   *         it back to the last commit
+   */
+  private static boolean commit(final Checkpoint checkpoint, final String table,
+                                final example.db.print.output.IOutput output, final boolean positioned)
+  {
+    if (checkpoint == null)
+      return true;
+    output.sync();
+    long length = output.getPosition();
+    if (positioned && length < 0) {
+      checkpoint.discard(table);
+      logger.error("The output lost rows before table " + table + " was committed. Not exporting!");
+      return false;
+    }
+    checkpoint.commit(table, length);
+    return true;
+  }
+
+  /**
+   * Drops the mark staged for a table that failed partway and cuts the
+   * rows it did print from <code>output</code>, back to the
+   * <code>committed</code> length it had before the table, so the next
+   * run does not keep them and then export them again.
+   */
+  private static void discard(final Checkpoint checkpoint, final String table,
+                              final example.db.print.output.IOutput output, final long committed)
+  {
+    if (checkpoint == null)
+      return;
+    checkpoint.discard(table);
+    long length = output.getPosition();
+    if (committed < 0 || length <= committed)
+      return;
+    if (output.truncate(committed))
+      logger.warn("Cut " + (length - committed) + " bytes of table " + table + " from the output.");
+    else
+      logger.error("Could not cut the rows of table " + table + " from the output."
+          + " The next run exports them again!");
+  }
+
+  private static void finish(final Checkpoint checkpoint)
+  {
+    if (checkpoint != null && !Thread.currentThread().isInterrupted())
+      checkpoint.finish();
+  }
+
+  /**
+   * Cuts <code>output</code> back to the length it had at the last
+   * commit of a run that did not finish, so the rows written after it
+   * are not exported twice.
+   *
+   * @return False when the output is longer and cannot be cut
+   */
+  private static boolean recover(final Checkpoint checkpoint, final example.db.print.output.IOutput output)
+  {
+    long length = output.getPosition();
+    if (length < 0) {
+      logger.warn("The output has no length to check against the checkpoint."
+          + " A run that dies before committing a table repeats its rows!");
+      return true;
+    }
+    long committed = checkpoint.getOutputLength();
+    if (committed < 0)
+      return true;
+    if (length < committed) {
+      logger.warn("Output is shorter than at the last commit, it was replaced. Not cutting it.");
+      return true;
+    }
+    if (length == committed)
+      return true;
+    if (!output.truncate(committed)) {
+      logger.error("The last incremental run did not finish and its output cannot be cut back to "
+          + committed + " bytes. Not exporting!");
+      return false;
+    }
+    logger.warn("The last incremental run did not finish. Cut " + (length - committed)
+        + " bytes written after its last commit from the output.");
+    return true;
+  }
+
+  private static ExecutorService newExecutor(final int parallelism)
+  {
+    final AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(parallelism, r -> {
+      Thread t = new Thread(r, "export-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+}
@@ -3,19 +3,49 @@ package example.db;
 import org.apache.log4j.Logger;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 public class DBQuery {
 
   private static final Logger logger = Logger.getLogger(DBQuery.class);
 
-  public static void query(final String connectionStr, final String tableName, example.db.print.output.IOutput output)
+  public static boolean query(final String connectionStr, final String tableName, example.db.print.output.IOutput output)
+  {
+    return query(connectionStr, tableName, output, example.Options.parse(null));
+  }
+
+  /**
+   * Prints table <code>tableName</code> to <code>output</code> the way
+   * <code>options</code> ask for.
+   *
+   * @return False when the table could not be read, what was printed
+   *         of it may then be incomplete
+   */
+  public static boolean query(final String connectionStr, final String tableName, example.db.print.output.IOutput output,
+                              final example.Options options)
+  {
+    return query(connectionStr, tableName, output, options, null);
+  }
+
+  /**
+   * Same as {@link #query(String, String, example.db.print.output.IOutput, example.Options)},
+   * but with a <code>checkpoint</code> only the rows after its mark for
+   * the table are dumped and the new mark is staged in it.
+   */
+  public static boolean query(final String connectionStr, final String tableName, example.db.print.output.IOutput output,
+                              final example.Options options, final Checkpoint checkpoint)
   {
     Connection conn = null;
+    example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.table(tableName);
+    example.metrics.TableMetrics outer = example.metrics.ExportMetrics.enter(metrics);
+    long start = metrics.start();
+    long allocated = metrics.allocated();
+    boolean printed = false;
     try {
-        conn = DriverManager.getConnection(connectionStr);
-        example.db.print.DBTablePrinter.printTable(conn, tableName, output);
+        conn = example.db.pool.ConnectionPool.of(connectionStr).borrow();
+        metrics.stop(example.metrics.EStage.CONNECT, start);
+        printed = print(conn, connectionStr, tableName, output, options, checkpoint);
         logger.info("Success connected to database.");
     } catch (SQLException ex) {
         logger.fatal("Fail didn't connect to database.");
@@ -27,6 +57,130 @@ public class DBQuery {
           } catch (SQLException sqlEx) { } // ignore
           conn = null;
       }
+      metrics.finish(start, allocated);
+      example.metrics.ExportMetrics.enter(outer);
+    }
+    return printed;
+  }
+
+  private static boolean print(Connection conn, final String connectionStr, final String tableName,
+                               example.db.print.output.IOutput output, final example.Options options,
+                               final Checkpoint checkpoint)
+  {
+    example.db.lookup.LookupJoin join =
+        options.getBoolean("lookupJoin", false) ? example.db.lookup.LookupJoin.forView(tableName) : null;
+    example.db.print.format.EFormat format = options.getEnum("format",
+        example.db.print.format.EFormat.class, example.db.print.format.EFormat.TABLE);
+    example.db.select.SelectStatement select = select(conn, tableName, options);
+    if (select == null) {
+      return false;
+    }
+    if ((join != null || checkpoint != null) && !select.isAll()) {
+      logger.warn("Columns, conditions and order of table " + tableName
+          + " are not applied to a " + (join != null ? "lookup join" : "incremental export") + "!");
+    }
+    if (join != null) {
+      return printJoined(conn, connectionStr, join, output, options);
+    } else if (format != example.db.print.format.EFormat.TABLE) {
+      return example.db.print.format.DBTableWriter.writeTable(conn, select,
+          options.getInt("maxRows", 0),
+          options.getInt("fetchSize", example.db.print.DBTableDump.STREAM_FETCH_SIZE),
+          format, output) >= 0;
+    } else if (checkpoint != null) {
+      example.db.print.Watermark reached = example.db.print.DBTableDump.dumpSince(conn, tableName,
+          checkpoint.get(tableName),
+          options.get("watermarkColumn", "updated_at"),
+          options.getLong("watermarkLagMs", 1000),
+          options.getInt("fetchSize", example.db.print.DBTableDump.STREAM_FETCH_SIZE),
+          options.getInt("pageSize", example.db.print.DBTableDump.DEFAULT_PAGE_SIZE),
+          options.getInt("maxStringColWidth", 150),
+          options.getInt("sampleRows", example.db.print.DBResultsetStream.DEFAULT_SAMPLE_ROWS),
+          options.getEnum("overflow", example.db.print.EOverflow.class, example.db.print.EOverflow.TRUNCATE),
+          output);
+      if (reached != null)
+        checkpoint.stage(tableName, reached);
+      return reached != null;
+    } else if (options.getBoolean("fullDump", false) && options.getInt("scanThreads", 1) > 1) {
+      return new example.db.print.PartitionedScan(connectionStr,
+          options.getInt("scanThreads", 1),
+          options.getInt("scanPartitions", 0),
+          options.getInt("scanQueueBatches", example.db.print.PartitionedScan.DEFAULT_QUEUE_BATCHES))
+          .dump(conn, select,
+              options.getInt("fetchSize", example.db.print.DBTableDump.STREAM_FETCH_SIZE),
+              options.getInt("maxStringColWidth", 150),
+              options.getInt("sampleRows", example.db.print.DBResultsetStream.DEFAULT_SAMPLE_ROWS),
+              options.getEnum("overflow", example.db.print.EOverflow.class, example.db.print.EOverflow.TRUNCATE),
+              output) >= 0;
+    } else if (options.getBoolean("fullDump", false)) {
+      return example.db.print.DBTableDump.dumpTable(conn, select,
+          options.getInt("fetchSize", example.db.print.DBTableDump.STREAM_FETCH_SIZE),
+          options.getInt("pageSize", 0),
+          options.getLong("fromKey", Long.MIN_VALUE),
+          options.getInt("maxStringColWidth", 150),
+          options.getInt("sampleRows", example.db.print.DBResultsetStream.DEFAULT_SAMPLE_ROWS),
+          options.getEnum("overflow", example.db.print.EOverflow.class, example.db.print.EOverflow.TRUNCATE),
+          output) >= 0;
+    } else if (options.getBoolean("streaming", false)) {
+      return example.db.print.DBTablePrinter.streamTable(conn, select,
+          options.getInt("maxRows", 0),
+          options.getInt("fetchSize", example.db.print.DBTableDump.STREAM_FETCH_SIZE),
+          options.getInt("maxStringColWidth", 150),
+          options.getInt("sampleRows", example.db.print.DBResultsetStream.DEFAULT_SAMPLE_ROWS),
+          options.getEnum("overflow", example.db.print.EOverflow.class, example.db.print.EOverflow.TRUNCATE),
+          output) >= 0;
+    } else {
+      return example.db.print.DBTablePrinter.printTable(conn, select,
+          options.getInt("maxRows", 10),
+          options.getInt("maxStringColWidth", 150),
+          output);
+    }
+  }
+
+  /**
+   * Returns the statement for the columns, conditions and order given
+   * for <code>tableName</code> with <code>--&lt;table&gt;.columns</code>,
+   * <code>.where</code> and <code>.orderBy</code>, or null when they are
+   * not valid. Such a table is left out rather than exported unfiltered.
+   */
+  private static example.db.select.SelectStatement select(Connection conn, final String tableName,
+                                                          final example.Options options)
+  {
+    try {
+      return example.db.select.SelectStatement.compile(conn,
+          example.db.select.TableSelect.parse(tableName, options));
+    } catch (IllegalArgumentException | SQLException e) {
+      logger.error("Invalid selection for table " + tableName + ", not exporting it: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static boolean printJoined(Connection conn, final String connectionStr, final example.db.lookup.LookupJoin join,
+                                     example.db.print.output.IOutput output, final example.Options options)
+  {
+    example.db.print.format.EFormat format = options.getEnum("format",
+        example.db.print.format.EFormat.class, example.db.print.format.EFormat.TABLE);
+    boolean fullDump = options.getBoolean("fullDump", false);
+    boolean streaming = fullDump || options.getBoolean("streaming", false)
+        || format != example.db.print.format.EFormat.TABLE;
+    int maxRows = fullDump ? 0 : options.getInt("maxRows", streaming ? 0 : 10);
+
+    try (ResultSet rs = join.open(conn, connectionStr, maxRows,
+        options.getInt("fetchSize", example.db.print.DBTableDump.STREAM_FETCH_SIZE),
+        options.getLong("lookupCheckIntervalMs", 0))) {
+      if (format != example.db.print.format.EFormat.TABLE) {
+        return format.write(rs, null, output) >= 0;
+      } else if (streaming) {
+        return example.db.print.DBResultsetStream.streamResultSet(rs,
+            options.getInt("maxStringColWidth", 150),
+            options.getInt("sampleRows", example.db.print.DBResultsetStream.DEFAULT_SAMPLE_ROWS),
+            options.getEnum("overflow", example.db.print.EOverflow.class, example.db.print.EOverflow.TRUNCATE),
+            output) >= 0;
+      } else {
+        return example.db.print.DBResultsetPrint.printResultSet(rs, options.getInt("maxStringColWidth", 150), output);
+      }
+    } catch (SQLException e) {
+      logger.error(e.getMessage());
+      return false;
     }
   }
 }
@@ -0,0 +1,67 @@
+package example.db.cache;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * How {@link RenderCache} tells whether a table changed since its
+ * output was cached, picked with <code>--cacheFingerprint</code>. Both
+ * include the definition version of the table, so a changed column is
+ * noticed too.
+ */
+public enum EFingerprint {
+  /**
+   * Row count, highest primary key and, when the table has one, latest
+   * <code>updated_at</code> (changeset 010). Read from the indexes, but
+   * blind to updates of a table without an update time. Tables without
+   * a single column primary key, like views, are not cached.
+   */
+  STATS(){
+    @Override
+    String read(Connection conn, String tableName) throws SQLException {
+      String key = example.db.print.DBTableDump.primaryKey(conn, tableName);
+      if (key == null)
+        return null;
+      String sql = "SELECT COUNT(*), MAX(" + example.db.select.SelectStatement.quote(key) + ")";
+      if (example.db.print.DBTableDump.hasColumn(conn, tableName, UPDATED_AT))
+        sql += ", MAX(" + example.db.select.SelectStatement.quote(UPDATED_AT) + ")";
+      try (Statement stmt = conn.createStatement();
+           ResultSet rs = stmt.executeQuery(sql + " FROM " + example.db.select.SelectStatement.quoteName(tableName))) {
+        if (!rs.next())
+          return null;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++)
+          sb.append(i > 1 ? "," : "").append(rs.getString(i));
+        return sb.toString();
+      }
+    }
+  },
+  /**
+   * <code>CHECKSUM TABLE</code>, which sees every change but reads the
+   * whole table. Views have no checksum and are not cached.
+   */
+  CHECKSUM(){
+    @Override
+    String read(Connection conn, String tableName) throws SQLException {
+      try (Statement stmt = conn.createStatement();
+           ResultSet rs = stmt.executeQuery("CHECKSUM TABLE " + example.db.select.SelectStatement.quoteName(tableName))) {
+        return rs.next() ? rs.getString("Checksum") : null;
+      }
+    }
+  };
+
+  private static final String UPDATED_AT = "updated_at";
+
+  /**
+   * Returns the fingerprint of <code>tableName</code>, null when it
+   * cannot be told whether the table changed.
+   */
+  public String of(Connection conn, String tableName) throws SQLException {
+    String data = read(conn, tableName);
+    return data == null ? null : example.db.print.SchemaCache.version(conn, tableName) + "/" + data;
+  }
+
+  abstract String read(Connection conn, String tableName) throws SQLException;
+}
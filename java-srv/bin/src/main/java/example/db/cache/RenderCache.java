@@ -0,0 +1,279 @@
+package example.db.cache;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the printed output of each table on disk, so a table that has
+ * not changed since the last run is neither queried nor printed again.
+ *
+ * <p>Before a table is printed its {@link EFingerprint} is read from the
+ * server. The cached output is found under a name made from the
+ * connection, the table, the options of the run and the fingerprint;
+ * when it exists it is replayed to the output line by line, otherwise
+ * the table is printed through a {@link example.db.print.output.ToTee}
+ * into a new entry that replaces the table's older ones. An entry is
+ * only kept if the table was printed without an error and the
+ * fingerprint is still the same after printing.</p>
+ *
+ * <p>The directory is held under a size limit by deleting the entries
+ * used least recently, going by their modification time, which a hit
+ * renews.</p>
+ */
+public class RenderCache {
+
+  private static final Logger logger = Logger.getLogger(RenderCache.class);
+
+  public static final String DEFAULT_DIR = "/root/log/cache";
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+  private static final String SUFFIX = ".out";
+
+  private final Path dir;
+  private final long maxBytes;
+  private final EFingerprint fingerprint;
+  private final String variant;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong uncached = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * @param maxBytes Size the directory is kept under
+   * @param variant Anything besides the table data that changes the
+   *                printed output, such as the options of the run
+   */
+  public RenderCache(final String dir, final long maxBytes, final EFingerprint fingerprint, final String variant)
+  {
+    this.dir = Paths.get(dir);
+    if (maxBytes < 1) {
+      logger.warn("Invalid render cache size. Using default!");
+      this.maxBytes = DEFAULT_MAX_BYTES;
+    } else {
+      this.maxBytes = maxBytes;
+    }
+    this.fingerprint = fingerprint;
+    this.variant = variant;
+    try {
+      Files.createDirectories(this.dir);
+    } catch (IOException e) {
+      logger.error("An error occurred while creating cache directory " + dir + ".");
+    }
+  }
+
+  /**
+   * Prints <code>table</code> to <code>output</code>: from the cache
+   * when the table has not changed, with <code>render</code> otherwise.
+   *
+   * @param render Prints the table, returns false when it could not be read
+   * @return False when the table was rendered and could not be read
+   */
+  public boolean print(final String connectionStr, final String table, final example.db.print.output.IOutput output,
+                    final Predicate<example.db.print.output.IOutput> render)
+  {
+    String before = fingerprint(connectionStr, table);
+    if (before == null) {
+      uncached.incrementAndGet();
+      return render.test(output);
+    }
+
+    String prefix = digest(connectionStr + "\n" + table + "\n" + variant);
+    Path entry = dir.resolve(prefix + "-" + digest(before) + SUFFIX);
+    if (replay(entry, output)) {
+      hits.incrementAndGet();
+      return true;
+    }
+    misses.incrementAndGet();
+
+    Path tmp = dir.resolve(prefix + ".tmp");
+    boolean rendered;
+    try (example.db.print.output.IOutput tee = new example.db.print.output.ToTee(output,
+        new example.db.print.output.ToFile(tmp.toString(), example.db.print.output.ToFile.DEFAULT_BUFFER_SIZE,
+            example.db.print.output.ToFile.DEFAULT_FLUSH_INTERVAL_MS, false))) {
+      rendered = render.test(tee);
+    }
+
+    if (!rendered) {
+      logger.info("Table " + table + " could not be printed, not caching it.");
+      delete(tmp);
+    } else if (before.equals(fingerprint(connectionStr, table))) {
+      store(prefix, tmp, entry);
+    } else {
+      logger.info("Table " + table + " changed while it was printed, not caching it.");
+      delete(tmp);
+    }
+    return rendered;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public String getStats() {
+    return String.format("hits=%d misses=%d uncached=%d evictions=%d",
+        hits.get(), misses.get(), uncached.get(), evictions.get());
+  }
+
+  private String fingerprint(final String connectionStr, final String table)
+  {
+    try (Connection conn = example.db.pool.ConnectionPool.of(connectionStr).borrow()) {
+      return fingerprint.of(conn, table);
+    } catch (SQLException e) {
+      logger.warn("Could not read the fingerprint of table " + table + ", not caching it: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Prints the lines of <code>entry</code> to <code>output</code>, the
+   * way {@link example.db.print.output.ToBuffer} does.
+   *
+   * @return False when there is no such entry, or it could not be read
+   *         before anything was printed and the table has to be
+   *         printed instead
+   */
+  private boolean replay(final Path entry, final example.db.print.output.IOutput output)
+  {
+    boolean printed = false;
+    try (Reader reader = Files.newBufferedReader(entry, StandardCharsets.UTF_8)) {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      char[] buf = new char[8192];
+      StringBuilder carry = new StringBuilder();
+      int n;
+      while ((n = reader.read(buf)) > 0) {
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+          if (buf[i] != '\n')
+            continue;
+          if (carry.length() > 0) {
+            carry.append(buf, start, i - start);
+            output.println(carry.toString());
+            carry.setLength(0);
+          } else {
+            output.println(buf, start, i - start);
+          }
+          printed = true;
+          start = i + 1;
+        }
+        carry.append(buf, start, n - start);
+      }
+      if (carry.length() > 0)
+        output.print(carry.toString());
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    } catch (IOException e) {
+      if (!printed) {
+        logger.warn("Could not read cache entry " + entry + ", printing the table instead.");
+        delete(entry);
+        return false;
+      }
+      logger.error("An error occurred while reading cache entry " + entry + ", the table was printed in part.");
+      return true;
+    }
+  }
+
+  private synchronized void store(final String prefix, final Path tmp, final Path entry)
+  {
+    try {
+      if (Files.size(tmp) > maxBytes) {
+        delete(tmp);
+        return;
+      }
+      try (DirectoryStream<Path> old = Files.newDirectoryStream(dir, prefix + "-*" + SUFFIX)) {
+        for (Path p : old)
+          delete(p);
+      }
+      Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.error("An error occurred while writing cache entry " + entry + ".");
+      delete(tmp);
+      return;
+    }
+    evict();
+  }
+
+  /**
+   * Deletes the entries used least recently until the directory is
+   * under its size limit.
+   */
+  private void evict()
+  {
+    List<Path> entries = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> all = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+      for (Path p : all) {
+        entries.add(p);
+        total += Files.size(p);
+      }
+      entries.sort(Comparator.comparing(RenderCache::lastModified));
+      for (Path p : entries) {
+        if (total <= maxBytes)
+          break;
+        total -= Files.size(p);
+        delete(p);
+        evictions.incrementAndGet();
+      }
+    } catch (IOException e) {
+      logger.error("An error occurred while evicting from cache directory " + dir + ".");
+    }
+  }
+
+  private static FileTime lastModified(final Path p)
+  {
+    try {
+      return Files.getLastModifiedTime(p);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private static void delete(final Path p)
+  {
+    try {
+      Files.deleteIfExists(p);
+    } catch (IOException e) {
+      logger.warn("Could not delete " + p + ".");
+    }
+  }
+
+  private static String digest(final String s)
+  {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      return String.format("%040x", new BigInteger(1, md.digest(s.getBytes(StandardCharsets.UTF_8))));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform has SHA-1
+      throw new IllegalStateException(e);
+    }
+  }
+}
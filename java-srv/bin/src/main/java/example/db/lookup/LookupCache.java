@@ -0,0 +1,166 @@
+package example.db.lookup;
+
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory copy of a small id to value table, like
+ * <code>breedLookup</code>. The copy is kept for the whole run and is
+ * checked against <code>CHECKSUM TABLE</code> before it is used, at most
+ * once per check interval, and loaded again when the checksum changed.
+ */
+public class LookupCache {
+
+  private static final Logger logger = Logger.getLogger(LookupCache.class);
+
+  private static final Map<String, LookupCache> caches = new ConcurrentHashMap<>();
+
+  private final String table;
+  private final String keyColumn;
+  private final String valueColumn;
+
+  private volatile Map<Long, String> values = null;
+  private volatile long checksum = -1;
+  private volatile long checkedAt = 0;
+  private int valueType;
+  private String valueTypeName;
+  private int valueDisplaySize;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong loads = new AtomicLong();
+
+  private LookupCache(final String table, final String keyColumn, final String valueColumn)
+  {
+    this.table = table;
+    this.keyColumn = keyColumn;
+    this.valueColumn = valueColumn;
+  }
+
+  /**
+   * Returns the cache of <code>table</code> in the database of
+   * <code>connectionStr</code>, creating an empty one the first time.
+   */
+  public static LookupCache of(final String connectionStr, final String table,
+                               final String keyColumn, final String valueColumn)
+  {
+    return caches.computeIfAbsent(connectionStr + "|" + table,
+        k -> new LookupCache(table, keyColumn, valueColumn));
+  }
+
+  /**
+   * Loads the table if it was never loaded, or if the check interval
+   * has passed and its checksum changed since it was loaded.
+   *
+   * @param checkIntervalMs How long a checked copy is trusted, 0 to
+   *                        check on every call
+   */
+  public synchronized void refresh(final Connection conn, final long checkIntervalMs) throws SQLException
+  {
+    long now = System.currentTimeMillis();
+    if (values != null && now - checkedAt < checkIntervalMs)
+      return;
+
+    long current = checksum(conn);
+    checkedAt = now;
+    // A table without a checksum (NULL) is loaded every time
+    if (values != null && current >= 0 && current == checksum)
+      return;
+
+    load(conn);
+    checksum = current;
+  }
+
+  /**
+   * Returns the value of <code>key</code>, or null when the table has
+   * no such row.
+   */
+  public String get(final long key)
+  {
+    String value = values.get(key);
+    if (value == null)
+      misses.incrementAndGet();
+    else
+      hits.incrementAndGet();
+    return value;
+  }
+
+  public String getTable()
+  {
+    return table;
+  }
+
+  public String getValueColumn()
+  {
+    return valueColumn;
+  }
+
+  public int getValueType()
+  {
+    return valueType;
+  }
+
+  public String getValueTypeName()
+  {
+    return valueTypeName;
+  }
+
+  public int getValueDisplaySize()
+  {
+    return valueDisplaySize;
+  }
+
+  public int size()
+  {
+    Map<Long, String> v = values;
+    return v == null ? 0 : v.size();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("%s rows=%d hits=%d misses=%d loads=%d",
+        table, size(), hits.get(), misses.get(), loads.get());
+  }
+
+  private long checksum(final Connection conn) throws SQLException
+  {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("CHECKSUM TABLE `" + table + "`")) {
+      if (rs.next()) {
+        long sum = rs.getLong(2);
+        return rs.wasNull() ? -1 : sum;
+      }
+      return -1;
+    }
+  }
+
+  private void load(final Connection conn) throws SQLException
+  {
+    Map<Long, String> loaded = new HashMap<>();
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT `" + keyColumn + "`, `" + valueColumn + "` FROM `" + table + "`")) {
+      ResultSetMetaData rsmd = rs.getMetaData();
+      valueType = rsmd.getColumnType(2);
+      valueTypeName = rsmd.getColumnTypeName(2);
+      valueDisplaySize = rsmd.getColumnDisplaySize(2);
+      while (rs.next()) {
+        long key = rs.getLong(1);
+        if (!rs.wasNull())
+          loaded.put(key, rs.getString(2));
+      }
+    }
+    values = loaded;
+    loads.incrementAndGet();
+    logger.info("Loaded " + loaded.size() + " rows from " + table + " into the lookup cache.");
+  }
+}
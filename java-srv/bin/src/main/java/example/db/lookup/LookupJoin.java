@@ -0,0 +1,263 @@
+package example.db.lookup;
+
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+
+/**
+ * Reads a view that only resolves ids through lookup tables, like
+ * <code>dog_expanded</code>, without asking the server to join. The
+ * lookup tables are held in {@link LookupCache}s, the base table is
+ * read on its own and every row is joined in memory. The
+ * <code>ResultSet</code> handed back has the columns of the view and
+ * inner join semantics: a row whose id is missing from a lookup is
+ * left out.
+ *
+ * <p>The lookups are checked for changes before the base table is
+ * opened, on the same connection, as nothing else can be read on it
+ * while the base rows stream and borrowing a second connection could
+ * wait for ever on a pool in use by the other tables. A lookup trusted
+ * for <code>checkIntervalMs</code> may miss rows added in that time.</p>
+ *
+ * <p>With <code>maxRows</code> the limit is applied to the base table,
+ * so a row left out by the join is not made up for.</p>
+ */
+public class LookupJoin {
+
+  private static final Logger logger = Logger.getLogger(LookupJoin.class);
+
+  /**
+   * Changeset 008: <code>dog</code> joined to <code>breedLookup</code>
+   * and <code>colorLookup</code>.
+   */
+  public static final LookupJoin DOG_EXPANDED = new LookupJoin("dog_expanded", "dog", "id",
+      new String[]{"breedId", "colorId"},
+      new String[]{"breedLookup", "colorLookup"},
+      new String[]{"breed", "color"});
+
+  private final String view;
+  private final String baseTable;
+  private final String keyColumn;
+  private final String[] idColumns;
+  private final String[] lookupTables;
+  private final String[] valueColumns;
+
+  public LookupJoin(final String view, final String baseTable, final String keyColumn,
+                    final String[] idColumns, final String[] lookupTables, final String[] valueColumns)
+  {
+    this.view = view;
+    this.baseTable = baseTable;
+    this.keyColumn = keyColumn;
+    this.idColumns = idColumns;
+    this.lookupTables = lookupTables;
+    this.valueColumns = valueColumns;
+  }
+
+  /**
+   * Returns the join that stands in for <code>view</code>, or null.
+   */
+  public static LookupJoin forView(final String view)
+  {
+    return DOG_EXPANDED.view.equalsIgnoreCase(view) ? DOG_EXPANDED : null;
+  }
+
+  public String getView()
+  {
+    return view;
+  }
+
+  /**
+   * Brings the lookup caches up to date and opens the base table.
+   * Closing the returned <code>ResultSet</code> closes its statement.
+   *
+   * @param maxRows Limit on the base table, less than 1 for all rows
+   * @param fetchSize Fetch size of the base table,
+   *                  {@link example.db.print.DBTableDump#STREAM_FETCH_SIZE} to stream it
+   * @param checkIntervalMs How long a checked lookup is trusted
+   */
+  public ResultSet open(final Connection conn, final String connectionStr, final int maxRows,
+                        final int fetchSize, final long checkIntervalMs) throws SQLException
+  {
+    final LookupCache[] caches = new LookupCache[lookupTables.length];
+    for (int i = 0; i < caches.length; i++) {
+      caches[i] = LookupCache.of(connectionStr, lookupTables[i], "id", valueColumns[i]);
+      caches[i].refresh(conn, checkIntervalMs);
+    }
+
+    StringBuilder sql = new StringBuilder("SELECT `").append(keyColumn).append('`');
+    for (String id : idColumns)
+      sql.append(", `").append(id).append('`');
+    sql.append(" FROM `").append(baseTable).append('`');
+    if (maxRows > 0)
+      sql.append(" LIMIT ?");
+
+    logger.info("Joining " + view + " in memory from " + baseTable + ".");
+    example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+    long t = metrics.start();
+    PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    ResultSet base;
+    try {
+      stmt.setFetchSize(fetchSize);
+      if (maxRows > 0)
+        stmt.setInt(1, maxRows);
+      base = stmt.executeQuery();
+    } catch (SQLException e) {
+      stmt.close();
+      throw e;
+    }
+    metrics.stop(example.metrics.EStage.QUERY, t);
+    return joined(stmt, base, caches);
+  }
+
+  private ResultSet joined(final Statement stmt, final ResultSet base, final LookupCache[] caches)
+      throws SQLException
+  {
+    final ResultSetMetaData baseMeta = base.getMetaData();
+    final ResultSetMetaData meta = metaData(baseMeta, caches);
+    final String[] values = new String[caches.length];
+    final boolean[] state = {false, false}; // wasNull, miss logged
+
+    return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+        new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "next":
+              while (base.next()) {
+                if (resolve(base, caches, values, state))
+                  return true;
+              }
+              return false;
+            case "getMetaData":
+              return meta;
+            case "wasNull":
+              return state[0];
+            case "close":
+              try {
+                base.close();
+              } finally {
+                stmt.close();
+              }
+              return null;
+            case "isClosed":
+              return base.isClosed();
+            case "getStatement":
+              return stmt;
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "toString":
+              return "Joined " + view;
+            default:
+              break;
+          }
+          if (args == null || args.length != 1 || !(args[0] instanceof Integer))
+            throw new SQLFeatureNotSupportedException(method.getName() + " is not supported by " + view);
+
+          int column = (Integer) args[0];
+          if (column == 1) {
+            try {
+              Object value = method.invoke(base, args);
+              state[0] = base.wasNull();
+              return value;
+            } catch (InvocationTargetException ite) {
+              throw ite.getCause();
+            }
+          }
+          if (column < 2 || column > values.length + 1)
+            throw new SQLException("Column index out of range: " + column);
+          String value = values[column - 2];
+          state[0] = false;
+          switch (method.getName()) {
+            case "getString":
+            case "getNString":
+            case "getObject":
+              return value;
+            default:
+              throw new SQLFeatureNotSupportedException(method.getName() + " on a text column of " + view);
+          }
+        });
+  }
+
+  private boolean resolve(final ResultSet base, final LookupCache[] caches, final String[] values,
+                          final boolean[] state) throws SQLException
+  {
+    for (int i = 0; i < caches.length; i++) {
+      long id = base.getLong(i + 2);
+      if (base.wasNull())
+        return false;
+      String value = caches[i].get(id);
+      if (value == null) {
+        if (!state[1]) {
+          state[1] = true;
+          logger.warn(idColumns[i] + " " + id + " of " + baseTable + " is not in " + caches[i].getTable()
+              + ", leaving the row out of " + view + ".");
+        }
+        return false;
+      }
+      values[i] = value;
+    }
+    return true;
+  }
+
+  private ResultSetMetaData metaData(final ResultSetMetaData baseMeta, final LookupCache[] caches)
+  {
+    return (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+        new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getColumnCount":
+              return caches.length + 1;
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "toString":
+              return "Joined " + view + " meta data";
+            default:
+              break;
+          }
+          int column = (Integer) args[0];
+          if (method.getName().equals("getTableName"))
+            return view;
+          if (column == 1) {
+            try {
+              return method.invoke(baseMeta, args);
+            } catch (InvocationTargetException ite) {
+              throw ite.getCause();
+            }
+          }
+          LookupCache cache = caches[column - 2];
+          switch (method.getName()) {
+            case "getColumnLabel":
+            case "getColumnName":
+              return cache.getValueColumn();
+            case "getColumnType":
+              return cache.getValueType();
+            case "getColumnTypeName":
+              return cache.getValueTypeName();
+            case "getColumnDisplaySize":
+            case "getPrecision":
+              return cache.getValueDisplaySize();
+            case "getColumnClassName":
+              return String.class.getName();
+            case "isNullable":
+              return ResultSetMetaData.columnNoNulls;
+            case "getScale":
+              return 0;
+            case "getCatalogName":
+            case "getSchemaName":
+              return "";
+            default:
+              return false; // isAutoIncrement, isCaseSensitive, ...
+          }
+        });
+  }
+}
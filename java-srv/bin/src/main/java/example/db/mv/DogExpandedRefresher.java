@@ -0,0 +1,197 @@
+package example.db.mv;
+
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Brings <code>dog_expanded_mv</code> (changeset 009) up to date with
+ * <code>dog</code>, <code>breedLookup</code> and <code>colorLookup</code>.
+ *
+ * <p>Triggers on the three tables log the id of every changed row to
+ * <code>dog_expanded_changes</code>. A refresh reads the log a batch at
+ * a time, turns breed and color ids into the dog ids that use them
+ * (through the <code>IDX_BREED</code>/<code>IDX_COLOR</code> indexes),
+ * and rewrites just those rows of the materialized table in the same
+ * transaction that removes the log entries it handled. Its cost
+ * follows the number of changed rows, not the size of the tables.</p>
+ */
+public class DogExpandedRefresher {
+
+  private static final Logger logger = Logger.getLogger(DogExpandedRefresher.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 500;
+
+  private static final String SELECT_CHANGES =
+      "SELECT seq, source, sourceId FROM dog_expanded_changes ORDER BY seq LIMIT ?";
+
+  private static final String JOIN =
+      "SELECT d.id, b.breed, c.color FROM dog as d"
+      + " JOIN breedLookup as b ON b.id = d.breedId"
+      + " JOIN colorLookup as c ON c.id = d.colorId"
+      + " WHERE d.id IN ";
+
+  private final String connectionStr;
+  private final int batchSize;
+
+  public DogExpandedRefresher(final String connectionStr, final int batchSize)
+  {
+    this.connectionStr = connectionStr;
+    if (batchSize < 1) {
+      logger.warn("Invalid refresh batch size. Using default!");
+      this.batchSize = DEFAULT_BATCH_SIZE;
+    } else {
+      this.batchSize = batchSize;
+    }
+  }
+
+  /**
+   * Applies every change logged so far.
+   *
+   * @return Number of dog rows rewritten
+   */
+  public long refresh()
+  {
+    long rewritten = 0;
+    int batches = 0;
+    try (Connection conn = example.db.pool.ConnectionPool.of(connectionStr).borrow()) {
+      int isolation = conn.getTransactionIsolation();
+      // Read committed, so the join sees changes committed while the
+      // refresh runs; they are in the log too and are applied again
+      conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      try {
+        while (true) {
+          int applied = applyBatch(conn);
+          if (applied < 0)
+            break;
+          rewritten += applied;
+          batches++;
+        }
+      } finally {
+        conn.setTransactionIsolation(isolation);
+      }
+      logger.info("Refreshed dog_expanded_mv: " + rewritten + " rows in " + batches + " batches.");
+    } catch (SQLException e) {
+      logger.error("Refresh of dog_expanded_mv failed: " + e.getMessage());
+    }
+    return rewritten;
+  }
+
+  /**
+   * Applies one batch of the change log in one transaction.
+   *
+   * @return Rows rewritten, or -1 when the log is empty
+   */
+  private int applyBatch(final Connection conn) throws SQLException
+  {
+    List<Long> seqs = new ArrayList<>();
+    Set<Long> dogs = new TreeSet<>();
+    Set<Long> breeds = new TreeSet<>();
+    Set<Long> colors = new TreeSet<>();
+
+    conn.setAutoCommit(false);
+    try {
+      try (PreparedStatement stmt = conn.prepareStatement(SELECT_CHANGES)) {
+        stmt.setInt(1, batchSize);
+        try (ResultSet rs = stmt.executeQuery()) {
+          while (rs.next()) {
+            seqs.add(rs.getLong(1));
+            long id = rs.getLong(3);
+            switch (rs.getString(2)) {
+              case "breed":
+                breeds.add(id);
+                break;
+              case "color":
+                colors.add(id);
+                break;
+              default:
+                dogs.add(id);
+            }
+          }
+        }
+      }
+      if (seqs.isEmpty()) {
+        conn.commit();
+        return -1;
+      }
+
+      dogsUsing(conn, "breedId", breeds, dogs);
+      dogsUsing(conn, "colorId", colors, dogs);
+
+      int rewritten = 0;
+      Iterator<Long> it = dogs.iterator();
+      while (it.hasNext()) {
+        List<Long> chunk = new ArrayList<>(batchSize);
+        while (it.hasNext() && chunk.size() < batchSize)
+          chunk.add(it.next());
+        rewritten += rewrite(conn, chunk);
+      }
+
+      // Only the entries read, an entry with a lower seq can still be
+      // committed by a transaction that started before this one
+      execute(conn, "DELETE FROM dog_expanded_changes WHERE seq IN " + inList(seqs), seqs);
+      conn.commit();
+      return rewritten;
+    } catch (SQLException e) {
+      conn.rollback();
+      throw e;
+    } finally {
+      conn.setAutoCommit(true);
+    }
+  }
+
+  private void dogsUsing(final Connection conn, final String column, final Set<Long> ids,
+                         final Set<Long> dogs) throws SQLException
+  {
+    if (ids.isEmpty())
+      return;
+    List<Long> list = new ArrayList<>(ids);
+    try (PreparedStatement stmt = conn.prepareStatement(
+        "SELECT id FROM dog WHERE " + column + " IN " + inList(list))) {
+      bind(stmt, list);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next())
+          dogs.add(rs.getLong(1));
+      }
+    }
+  }
+
+  private int rewrite(final Connection conn, final List<Long> ids) throws SQLException
+  {
+    String in = inList(ids);
+    execute(conn, "DELETE FROM dog_expanded_mv WHERE id IN " + in, ids);
+    return execute(conn, "INSERT INTO dog_expanded_mv (id, breed, color) " + JOIN + in, ids);
+  }
+
+  private static int execute(final Connection conn, final String sql, final List<Long> ids) throws SQLException
+  {
+    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+      bind(stmt, ids);
+      return stmt.executeUpdate();
+    }
+  }
+
+  private static void bind(final PreparedStatement stmt, final List<Long> ids) throws SQLException
+  {
+    int i = 1;
+    for (Long id : ids)
+      stmt.setLong(i++, id);
+  }
+
+  private static String inList(final Collection<?> values)
+  {
+    StringBuilder sb = new StringBuilder("(");
+    for (int i = 0; i < values.size(); i++)
+      sb.append(i == 0 ? "?" : ", ?");
+    return sb.append(')').toString();
+  }
+}
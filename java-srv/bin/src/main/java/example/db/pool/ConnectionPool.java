@@ -0,0 +1,405 @@
+package example.db.pool;
+
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small pool of JDBC connections to one database URL.
+ *
+ * <p>Connections are handed out wrapped in a proxy whose
+ * <code>close()</code> gives the connection back to the pool instead of
+ * closing it. Idle connections are checked with
+ * <code>Connection.isValid</code> before they are handed out again,
+ * evicted once they have been idle for too long and a warning with the
+ * borrower's stack trace is logged for connections held past the leak
+ * threshold.</p>
+ */
+public class ConnectionPool {
+
+  private static final Logger logger = Logger.getLogger(ConnectionPool.class);
+
+  private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+  public static final int DEFAULT_MAX_SIZE = 4;
+  public static final int DEFAULT_MIN_IDLE = 1;
+  public static final long DEFAULT_MAX_WAIT_MS = 30000;
+  public static final long DEFAULT_IDLE_TIMEOUT_MS = 60000;
+  public static final long DEFAULT_LEAK_THRESHOLD_MS = 60000;
+  public static final long DEFAULT_VALIDATION_INTERVAL_MS = 5000;
+  private static final int VALIDATION_TIMEOUT_SEC = 2;
+
+  private final String connectionStr;
+  private final int maxSize;
+  private final int minIdle;
+  private final long maxWaitMs;
+  private final long idleTimeoutMs;
+  private final long leakThresholdMs;
+  private final long validationIntervalMs;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+  private final Deque<Entry> idle = new ArrayDeque<>();
+  private final Set<Entry> borrowed = ConcurrentHashMap.newKeySet();
+  private int total = 0;
+  private boolean closed = false;
+
+  private final AtomicLong borrows = new AtomicLong();
+  private final AtomicLong created = new AtomicLong();
+  private final AtomicLong evicted = new AtomicLong();
+  private final AtomicLong invalid = new AtomicLong();
+  private final AtomicLong leaks = new AtomicLong();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  private final ScheduledExecutorService housekeeper;
+
+  public ConnectionPool(final String connectionStr, final int maxSize, final int minIdle, final long maxWaitMs,
+                        final long idleTimeoutMs, final long leakThresholdMs, final long validationIntervalMs)
+  {
+    this.connectionStr = connectionStr;
+    this.maxSize = Math.max(1, maxSize);
+    this.minIdle = Math.max(0, Math.min(minIdle, this.maxSize));
+    this.maxWaitMs = maxWaitMs;
+    this.idleTimeoutMs = idleTimeoutMs;
+    this.leakThresholdMs = leakThresholdMs;
+    this.validationIntervalMs = validationIntervalMs;
+
+    this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "pool-housekeeper");
+      t.setDaemon(true);
+      return t;
+    });
+    long period = Math.max(1000, Math.min(idleTimeoutMs, leakThresholdMs) / 2);
+    this.housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates the pool for <code>connectionStr</code> sized from the
+   * <code>pool*</code> options, replacing any pool already registered.
+   */
+  public static ConnectionPool register(final String connectionStr, final example.Options options)
+  {
+    ConnectionPool pool = new ConnectionPool(connectionStr,
+        options.getInt("poolSize", DEFAULT_MAX_SIZE),
+        options.getInt("poolMinIdle", DEFAULT_MIN_IDLE),
+        options.getLong("poolMaxWaitMs", DEFAULT_MAX_WAIT_MS),
+        options.getLong("poolIdleTimeoutMs", DEFAULT_IDLE_TIMEOUT_MS),
+        options.getLong("poolLeakThresholdMs", DEFAULT_LEAK_THRESHOLD_MS),
+        options.getLong("poolValidationIntervalMs", DEFAULT_VALIDATION_INTERVAL_MS));
+    ConnectionPool old = pools.put(connectionStr, pool);
+    if (old != null)
+      old.close();
+    return pool;
+  }
+
+  /**
+   * Returns the pool for <code>connectionStr</code>, creating one with
+   * the default sizes if none was registered.
+   */
+  public static ConnectionPool of(final String connectionStr)
+  {
+    return pools.computeIfAbsent(connectionStr, url -> new ConnectionPool(url,
+        DEFAULT_MAX_SIZE, DEFAULT_MIN_IDLE, DEFAULT_MAX_WAIT_MS,
+        DEFAULT_IDLE_TIMEOUT_MS, DEFAULT_LEAK_THRESHOLD_MS, DEFAULT_VALIDATION_INTERVAL_MS));
+  }
+
+  /**
+   * Closes every registered pool.
+   */
+  public static void shutdownAll()
+  {
+    for (ConnectionPool pool : pools.values())
+      pool.close();
+    pools.clear();
+  }
+
+  /**
+   * Borrows a connection, waiting up to the configured max. wait for
+   * one to become free. Closing the returned connection gives it back.
+   */
+  public Connection borrow() throws SQLException
+  {
+    final long start = System.nanoTime();
+    final long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+
+    while (true) {
+      Entry e = null;
+      boolean create = false;
+
+      lock.lock();
+      try {
+        while (e == null && !create) {
+          if (closed)
+            throw new SQLException("Connection pool is closed");
+          if (!idle.isEmpty()) {
+            e = idle.pollFirst();
+          } else if (total < maxSize) {
+            total++;
+            create = true;
+          } else {
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+              throw new SQLException("Timed out after " + maxWaitMs + " ms waiting for a connection");
+            try {
+              available.awaitNanos(left);
+            } catch (InterruptedException ie) {
+              Thread.currentThread().interrupt();
+              throw new SQLException("Interrupted waiting for a connection", ie);
+            }
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      if (create) {
+        try {
+          e = new Entry(DriverManager.getConnection(connectionStr));
+          created.incrementAndGet();
+        } catch (SQLException ex) {
+          discard(null);
+          throw ex;
+        }
+      } else if (!isUsable(e)) {
+        invalid.incrementAndGet();
+        discard(e);
+        continue;
+      }
+
+      long waited = System.nanoTime() - start;
+      waitNanos.addAndGet(waited);
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+      borrows.incrementAndGet();
+      return lend(e);
+    }
+  }
+
+  /**
+   * Opens connections until at least <code>count</code> are held by
+   * the pool, so the first borrowers do not pay for the handshake.
+   *
+   * @return Number of connections held after warming up
+   */
+  public int warmUp(final int count) throws SQLException
+  {
+    int target = Math.min(count, maxSize);
+    while (true) {
+      lock.lock();
+      try {
+        if (closed || total >= target)
+          return total;
+        total++;
+      } finally {
+        lock.unlock();
+      }
+
+      Entry e;
+      try {
+        e = new Entry(DriverManager.getConnection(connectionStr));
+        created.incrementAndGet();
+      } catch (SQLException ex) {
+        discard(null);
+        throw ex;
+      }
+      giveBack(e);
+    }
+  }
+
+  public int getMinIdle()
+  {
+    return minIdle;
+  }
+
+  public PoolStats getStats()
+  {
+    lock.lock();
+    try {
+      long count = borrows.get();
+      return new PoolStats(borrowed.size(), idle.size(), total, maxSize, count, created.get(),
+          evicted.get(), invalid.get(), leaks.get(),
+          count == 0 ? 0 : waitNanos.get() / count, maxWaitNanos.get());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes the idle connections and stops handing out new ones.
+   * Borrowed connections are closed as they are given back.
+   */
+  public void close()
+  {
+    housekeeper.shutdownNow();
+    lock.lock();
+    try {
+      closed = true;
+      for (Entry e : idle)
+        closeQuietly(e.conn);
+      total -= idle.size();
+      idle.clear();
+      available.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean isUsable(final Entry e)
+  {
+    try {
+      if (e.conn.isClosed())
+        return false;
+      if (System.currentTimeMillis() - e.lastUsed < validationIntervalMs)
+        return true;
+      return e.conn.isValid(VALIDATION_TIMEOUT_SEC);
+    } catch (SQLException ex) {
+      return false;
+    }
+  }
+
+  private Connection lend(final Entry e)
+  {
+    e.borrowedAt = System.currentTimeMillis();
+    e.borrower = leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null;
+    e.leakReported = false;
+    borrowed.add(e);
+
+    final boolean[] returned = {false};
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "close":
+              if (!returned[0]) {
+                returned[0] = true;
+                giveBack(e);
+              }
+              return null;
+            case "isClosed":
+              return returned[0] || e.conn.isClosed();
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "toString":
+              return "Pooled " + e.conn;
+            default:
+              if (returned[0])
+                throw new SQLException("Connection has been returned to the pool");
+              try {
+                return method.invoke(e.conn, args);
+              } catch (InvocationTargetException ite) {
+                throw ite.getCause();
+              }
+          }
+        });
+  }
+
+  private void giveBack(final Entry e)
+  {
+    borrowed.remove(e);
+    boolean keep;
+    try {
+      keep = !e.conn.isClosed();
+      if (keep && !e.conn.getAutoCommit()) {
+        e.conn.rollback();
+        e.conn.setAutoCommit(true);
+      }
+    } catch (SQLException ex) {
+      keep = false;
+    }
+
+    lock.lock();
+    try {
+      if (keep && !closed) {
+        e.lastUsed = System.currentTimeMillis();
+        idle.addFirst(e);
+        available.signal();
+        return;
+      }
+    } finally {
+      lock.unlock();
+    }
+    discard(e);
+  }
+
+  private void discard(final Entry e)
+  {
+    if (e != null)
+      closeQuietly(e.conn);
+    lock.lock();
+    try {
+      total--;
+      available.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void housekeep()
+  {
+    long now = System.currentTimeMillis();
+
+    lock.lock();
+    try {
+      // Oldest idle connections sit at the tail of the deque
+      Iterator<Entry> it = idle.descendingIterator();
+      while (it.hasNext() && total > minIdle) {
+        Entry e = it.next();
+        if (now - e.lastUsed < idleTimeoutMs)
+          break;
+        it.remove();
+        total--;
+        evicted.incrementAndGet();
+        closeQuietly(e.conn);
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (leakThresholdMs > 0) {
+      for (Entry e : borrowed) {
+        if (!e.leakReported && now - e.borrowedAt > leakThresholdMs) {
+          e.leakReported = true;
+          leaks.incrementAndGet();
+          logger.warn("Connection held for more than " + leakThresholdMs + " ms, possible leak.", e.borrower);
+        }
+      }
+    }
+  }
+
+  private static void closeQuietly(final Connection conn)
+  {
+    try {
+      conn.close();
+    } catch (SQLException sqlEx) { } // ignore
+  }
+
+  private static class Entry {
+    final Connection conn;
+    volatile long lastUsed = System.currentTimeMillis();
+    volatile long borrowedAt;
+    volatile Throwable borrower;
+    volatile boolean leakReported;
+
+    Entry(final Connection conn)
+    {
+      this.conn = conn;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package example.db.pool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time snapshot of a {@link ConnectionPool}.
+ */
+public class PoolStats {
+
+  private final int active;
+  private final int idle;
+  private final int total;
+  private final int maxSize;
+  private final long borrows;
+  private final long created;
+  private final long evicted;
+  private final long invalid;
+  private final long leaks;
+  private final long avgWaitNanos;
+  private final long maxWaitNanos;
+
+  public PoolStats(int active, int idle, int total, int maxSize, long borrows, long created,
+                   long evicted, long invalid, long leaks, long avgWaitNanos, long maxWaitNanos) {
+    this.active = active;
+    this.idle = idle;
+    this.total = total;
+    this.maxSize = maxSize;
+    this.borrows = borrows;
+    this.created = created;
+    this.evicted = evicted;
+    this.invalid = invalid;
+    this.leaks = leaks;
+    this.avgWaitNanos = avgWaitNanos;
+    this.maxWaitNanos = maxWaitNanos;
+  }
+
+  public int getActive() {
+    return active;
+  }
+
+  public int getIdle() {
+    return idle;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getBorrows() {
+    return borrows;
+  }
+
+  public long getCreated() {
+    return created;
+  }
+
+  public long getEvicted() {
+    return evicted;
+  }
+
+  public long getInvalid() {
+    return invalid;
+  }
+
+  public long getLeaks() {
+    return leaks;
+  }
+
+  public double getAvgWaitMillis() {
+    return avgWaitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  public double getMaxWaitMillis() {
+    return maxWaitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("active=%d idle=%d total=%d/%d borrows=%d created=%d evicted=%d invalid=%d leaks=%d"
+        + " avgWait=%.3fms maxWait=%.3fms", active, idle, total, maxSize, borrows, created,
+        evicted, invalid, leaks, getAvgWaitMillis(), getMaxWaitMillis());
+  }
+}
@@ -1,8 +1,10 @@
 package example.db.print;
 
 
-import java.util.ArrayList;
-import java.util.List;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 /**
  * Represents a database table column.
  */
@@ -38,9 +40,38 @@ public class Column {
     private int width = 0;
 
     /**
-     * Column values from each row of a <code>ResultSet</code>.
+     * How the column values from each row of a <code>ResultSet</code>
+     * are held: in {@link #longs}, {@link #doubles} or as UTF-8 in
+     * {@link #text}. Text is only produced when a value is printed.
      */
-    private List<String> values = new ArrayList<>();
+    private EStorage storage = EStorage.TEXT;
+
+    /**
+     * Number of values held.
+     */
+    private int count = 0;
+
+    /**
+     * Values of integer columns.
+     */
+    private long[] longs;
+
+    /**
+     * Values of <code>DOUBLE</code> columns.
+     */
+    private double[] doubles;
+
+    /**
+     * Values of every other column, UTF-8 encoded one after another.
+     * Value <code>i</code> is <code>text[offsets[i] .. offsets[i + 1])</code>.
+     */
+    private byte[] text;
+    private int[] offsets;
+
+    /**
+     * One bit per value, set for <code>NULL</code>.
+     */
+    private long[] nulls = new long[1];
 
     /**
      * Flag for text justification using <code>String.format</code>.
@@ -75,6 +106,22 @@ public class Column {
         this.typeName = typeName;
         this.width = label.length();
         this.typeCategory = ECatagory.whichCategory(type);
+        this.storage = EStorage.forColumn(typeCategory, type, typeName);
+        allocate(16);
+    }
+
+    /**
+     * Constructs a new <code>Column</code> whose category and storage
+     * are already known, see {@link TableSchema}.
+     */
+    Column (String label, int type, String typeName, ECatagory typeCategory, EStorage storage) {
+        this.label = label;
+        this.type = type;
+        this.typeName = typeName;
+        this.width = label.length();
+        this.typeCategory = typeCategory;
+        this.storage = storage;
+        allocate(16);
     }
 
     /**
@@ -122,19 +169,86 @@ public class Column {
         this.width = width;
     }
 
+    /**
+     * Returns how the values of this column are held.
+     *
+     * @return The {@link #storage} of the column
+     */
+    public EStorage getStorage() {
+        return storage;
+    }
+
     /**
      * Adds a <code>String</code> representation (<code>value</code>)
-     * of a value to this column object's {@link #values} list.
-     * These values will come from each row of a
+     * of a value to this column. These values will come from each row
+     * of a
      * <a target="_blank"
      * href="http://docs.oracle.com/javase/8/docs/api/java/sql/ResultSet.html">
      * ResultSet
-     * </a> of a database query.
+     * </a> of a database query. A numeric column given text switches
+     * to text storage.
      *
-     * @param value The column value to add to {@link #values}
+     * @param value The column value to add
      */
     public void addValue(String value) {
-        values.add(value);
+        if (storage != EStorage.TEXT) {
+            toTextStorage();
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int start = offsets[count];
+        if (start + bytes.length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, start + bytes.length));
+        }
+        System.arraycopy(bytes, 0, text, start, bytes.length);
+        grow();
+        offsets[count + 1] = start + bytes.length;
+        count++;
+    }
+
+    /**
+     * Adds the value of an integer column and widens the column to fit
+     * it.
+     *
+     * @param value The column value to add
+     */
+    public void addLong(long value) {
+        if (storage != EStorage.LONG) {
+            adjustWidth(Long.toString(value));
+            return;
+        }
+        grow();
+        longs[count++] = value;
+        widen(longWidth(value));
+    }
+
+    /**
+     * Adds the value of a <code>DOUBLE</code> column and widens the
+     * column to fit it once printed with three decimals.
+     *
+     * @param value The column value to add
+     */
+    public void addDouble(double value) {
+        if (storage != EStorage.DOUBLE) {
+            adjustWidth(String.format("%.3f", value));
+            return;
+        }
+        grow();
+        doubles[count++] = value;
+        widen(doubleWidth(value));
+    }
+
+    /**
+     * Adds a <code>NULL</code> value and widens the column to fit it.
+     */
+    public void addNull() {
+        if (storage == EStorage.TEXT) {
+            addValue("NULL");
+        } else {
+            grow();
+            count++;
+        }
+        nulls[(count - 1) >>> 6] |= 1L << (count - 1);
+        widen(4);
     }
 
     /**
@@ -143,13 +257,98 @@ public class Column {
      * will get the value for this column from the first row
      * of a <a target="_blank"
      * href="http://docs.oracle.com/javase/8/docs/api/java/sql/ResultSet.html">
-     * ResultSet</a>.
+     * ResultSet</a>. The text is produced by this call.
      *
      * @param i The index of the column value to get
      * @return The String representation of the value
      */
     public String getValue(int i) {
-        return values.get(i);
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + count);
+        }
+        if (isNull(i)) {
+            return "NULL";
+        }
+        switch (storage) {
+            case LONG:
+                return Long.toString(longs[i]);
+            case DOUBLE:
+                return String.format("%.3f", doubles[i]);
+            default:
+                return new String(text, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Returns the value at row index <code>i</code> of an integer
+     * column held in {@link EStorage#LONG} storage.
+     */
+    public long getLong(int i) {
+        return longs[i];
+    }
+
+    /**
+     * Returns the value at row index <code>i</code> of a column held in
+     * {@link EStorage#DOUBLE} storage.
+     */
+    public double getDouble(int i) {
+        return doubles[i];
+    }
+
+    /**
+     * Decodes the text value at row index <code>i</code> straight into
+     * the buffer of <code>renderer</code> at <code>len</code>.
+     *
+     * @return The buffer length after the value
+     */
+    int appendText(int i, RowRenderer renderer, int len) {
+        int p = offsets[i];
+        int end = offsets[i + 1];
+        // UTF-8 never takes fewer bytes than UTF-16 takes chars
+        char[] out = renderer.ensure(len + end - p);
+        while (p < end) {
+            int b = text[p++];
+            if (b >= 0) {
+                out[len++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                out[len++] = (char) (((b & 0x1F) << 6) | (text[p++] & 0x3F));
+            } else if ((b & 0xF0) == 0xE0) {
+                out[len++] = (char) (((b & 0x0F) << 12) | ((text[p++] & 0x3F) << 6) | (text[p++] & 0x3F));
+            } else {
+                int cp = ((b & 0x07) << 18) | ((text[p++] & 0x3F) << 12)
+                        | ((text[p++] & 0x3F) << 6) | (text[p++] & 0x3F);
+                out[len++] = Character.highSurrogate(cp);
+                out[len++] = Character.lowSurrogate(cp);
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Returns <code>true</code> when the value at row index
+     * <code>i</code> is <code>NULL</code>.
+     */
+    public boolean isNull(int i) {
+        return (nulls[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Returns the number of values held by this column.
+     *
+     * @return Number of values
+     */
+    public int getValueCount() {
+        return count;
+    }
+
+    /**
+     * Drops the values held by this column while keeping its width
+     * and its buffers, so a streaming print can reuse the column for
+     * the next rows.
+     */
+    public void clearValues() {
+        Arrays.fill(nulls, 0, ((count + 63) >>> 6), 0L);
+        count = 0;
     }
 
     /**
@@ -188,4 +387,105 @@ public class Column {
       setWidth(value.length() > getWidth() ? value.length() : getWidth());
       addValue(value);
     }
+
+    private void widen(int valueWidth) {
+        if (valueWidth > width) {
+            width = valueWidth;
+        }
+    }
+
+    private void allocate(int capacity) {
+        offsets = new int[capacity + 1];
+        switch (storage) {
+            case LONG:
+                longs = new long[capacity];
+                break;
+            case DOUBLE:
+                doubles = new double[capacity];
+                break;
+            default:
+                text = new byte[capacity * 8];
+        }
+    }
+
+    private void grow() {
+        int capacity = offsets.length - 1;
+        if (count < capacity) {
+            return;
+        }
+        capacity *= 2;
+        offsets = Arrays.copyOf(offsets, capacity + 1);
+        if (longs != null) {
+            longs = Arrays.copyOf(longs, capacity);
+        }
+        if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, capacity);
+        }
+        if (nulls.length * 64 < capacity) {
+            nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+        }
+    }
+
+    /**
+     * Moves the values of a numeric column to text storage.
+     */
+    private void toTextStorage() {
+        int held = count;
+        String[] values = new String[held];
+        for (int i = 0; i < held; i++) {
+            values[i] = getValue(i);
+        }
+        storage = EStorage.TEXT;
+        longs = null;
+        doubles = null;
+        allocate(offsets.length - 1);
+        Arrays.fill(nulls, 0L);
+        count = 0;
+        for (String value : values) {
+            addValue(value);
+        }
+    }
+
+    /**
+     * Number of characters of <code>Long.toString(value)</code>.
+     */
+    static int longWidth(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int width = value < 0 ? 2 : 1;
+        long v = Math.abs(value);
+        while (v >= 10) {
+            v /= 10;
+            width++;
+        }
+        return width;
+    }
+
+    /**
+     * Number of characters of <code>String.format("%.3f", value)</code>.
+     */
+    static int doubleWidth(double value) {
+        if (Double.isNaN(value)) {
+            return 3;
+        }
+        if (Double.isInfinite(value)) {
+            return value < 0 ? 9 : 8;
+        }
+        double abs = Math.abs(value);
+        if (abs >= 1e15) {
+            return String.format("%.3f", value).length();
+        }
+        long integer = (long) abs;
+        double fraction = abs - integer;
+        if (Math.abs(fraction - 0.9995) <= Math.max(1e-9, 4 * Math.ulp(abs))) {
+            // Too close to call in binary, round the shortest decimal
+            // representation the way the formatter does
+            integer = BigDecimal.valueOf(abs).setScale(3, RoundingMode.HALF_UP).longValue();
+        } else if (fraction > 0.9995) {
+            integer++;
+        }
+        int sign = Math.copySign(1.0, value) < 0 ? 1 : 0;
+        return sign + longWidth(integer) + 4;
+    }
 }
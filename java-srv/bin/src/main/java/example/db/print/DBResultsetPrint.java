@@ -7,10 +7,22 @@ import java.util.StringJoiner;
 
 import org.apache.log4j.Logger;
 
+/**
+ * Prints a <code>ResultSet</code> as a table. Each print works on its own
+ * instance and the scratch buffers of its thread, so several threads
+ * can print at the same time. See {@link PrintSession}.
+ */
 public class DBResultsetPrint {
-  private static List<Column> columns;
-  private static List<String> tableNames;
-  private static example.db.print.output.IOutput output = new example.db.print.output.ToConsole();
+  // List of Column objects to store each columns of the ResultSet
+  // and the String representation of their values.
+  private final List<Column> columns = new ArrayList<>();
+
+  // List of table names. Can be more than one if it is a joined
+  // table query
+  private final List<String> tableNames = new ArrayList<>();
+
+  private final example.db.print.output.IOutput output;
+  private final PrintScratch scratch;
   private static final Logger logger = Logger.getLogger(DBResultsetPrint.class);
 
   /**
@@ -27,46 +39,68 @@ public class DBResultsetPrint {
    *
    * @param rs The <code>ResultSet</code> to print
    * @param maxStringColWidth Max. width of text columns
+   * @return False when <code>rs</code> could not be read
    */
-  public static void printResultSet(ResultSet rs, int maxStringColWidth, example.db.print.output.IOutput media) {
+  public static boolean printResultSet(ResultSet rs, int maxStringColWidth, example.db.print.output.IOutput media) {
+      if (media == null) {
+          logger.warn("Results will go to console");
+          media = new example.db.print.output.ToConsole();
+      }
+      return new DBResultsetPrint(media, PrintScratch.forThread()).print(rs, null, maxStringColWidth);
+  }
+
+  /**
+   * Same as {@link #printResultSet(ResultSet, int, example.db.print.output.IOutput)}
+   * with the columns taken from <code>schema</code> instead of being
+   * read from the meta data of <code>rs</code>.
+   */
+  public static boolean printResultSet(ResultSet rs, TableSchema schema, int maxStringColWidth,
+                                       example.db.print.output.IOutput media) {
+      if (media == null) {
+          logger.warn("Results will go to console");
+          media = new example.db.print.output.ToConsole();
+      }
+      return new DBResultsetPrint(media, PrintScratch.forThread()).print(rs, schema, maxStringColWidth);
+  }
+
+  DBResultsetPrint(example.db.print.output.IOutput output, PrintScratch scratch) {
+      this.output = output;
+      this.scratch = scratch;
+  }
+
+  boolean print(ResultSet rs, TableSchema schema, int maxStringColWidth) {
       try {
           if (rs == null) {
               logger.error("Result set is null!");
-              return;
+              return false;
           }
           if (rs.isClosed()) {
               logger.error("Result Set is closed!");
-              return;
+              return false;
           }
           if (maxStringColWidth < 1) {
               logger.warn("Invalid max. varchar column width. Using default!");
               maxStringColWidth = DEFAULT_MAX_TEXT_COL_WIDTH;
           }
-          if (media == null) {
-              logger.warn("Results will go to console");
+          if (schema != null) {
+              columns.addAll(schema.newColumns(rs));
+              tableNames.addAll(schema.getTableNames(rs));
           } else {
-            output = media;
+              // Get the meta data object of this ResultSet.
+              ResultSetMetaData rsmd;
+              rsmd = rs.getMetaData();
+
+              addColumns(rsmd.getColumnCount(), rsmd);
           }
-          // Get the meta data object of this ResultSet.
-          ResultSetMetaData rsmd;
-          rsmd = rs.getMetaData();
 
           // Total number of columns in this ResultSet
-          int columnCount = rsmd.getColumnCount();
-
-          // List of Column objects to store each columns of the ResultSet
-          // and the String representation of their values.
-          columns = new ArrayList<>(columnCount);
-
-          // List of table names. Can be more than one if it is a joined
-          // table query
-          tableNames = new ArrayList<>(columnCount);
-
-          addColumns(columnCount, rsmd);
+          int columnCount = columns.size();
 
           // Go through each row, get values of each column and adjust
           // column widths.
           int rowCount = 0;
+          example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+          long t = metrics.start();
           while (rs.next()) {
 
               // NOTE: columnIndex for rs.getXXX methods STARTS AT 1 NOT 0
@@ -76,6 +110,7 @@ public class DBResultsetPrint {
                   category.addValue(rs, c, maxStringColWidth, i);
               } // END of for loop columnCount
               rowCount++;
+              t = metrics.lap(example.metrics.EStage.FETCH, t);
 
           } // END of while (rs.next)
 
@@ -90,49 +125,10 @@ public class DBResultsetPrint {
            */
 
           // For the fun of it, I will use StringBuilder
-          StringBuilder strToPrint = new StringBuilder();
-          StringBuilder rowSeparator = new StringBuilder();
-
-          /*
-          Prepare column labels to print as well as the row separator.
-          It should look something like this:
-          +--------+------------+------------+-----------+  (row separator)
-          | EMP_NO | BIRTH_DATE | FIRST_NAME | LAST_NAME |  (labels row)
-          +--------+------------+------------+-----------+  (row separator)
-           */
-
-          // Iterate over columns
-          for (Column c : columns) {
-              int width = c.getWidth();
-
-            // Center the column label
-              String toPrint;
-              String name = c.getLabel();
-              int diff = width - name.length();
-
-              if ((diff%2) == 1) {
-                  // diff is not divisible by 2, add 1 to width (and diff)
-                  // so that we can have equal padding to the left and right
-                  // of the column label.
-                  width++;
-                  diff++;
-                  c.setWidth(width);
-              }
+          StringBuilder strToPrint = scratch.header();
+          StringBuilder rowSeparator = scratch.separator();
 
-              int paddingSize = diff/2; // InteliJ says casting to int is redundant.
-
-              // Cool String repeater code thanks to user102008 at stackoverflow.com
-              // (http://tinyurl.com/7x9qtyg) "Simple way to repeat a string in java"
-              String padding = new String(new char[paddingSize]).replace("\0", " ");
-
-              toPrint = "| " + padding + name + padding + " ";
-            // END centering the column label
-
-              strToPrint.append(toPrint);
-
-              rowSeparator.append("+");
-              rowSeparator.append(new String(new char[width + 2]).replace("\0", "-"));
-          }
+          buildHeader(columns, strToPrint, rowSeparator);
 
           printCaption(rowCount);
 
@@ -152,9 +148,11 @@ public class DBResultsetPrint {
 
       } catch (SQLException e) {
           logger.error("SQL exception");
+          return false;
       }
+      return true;
   }
-  private static void addColumns(int columnCount, ResultSetMetaData rsmd) throws SQLException {
+  private void addColumns(int columnCount, ResultSetMetaData rsmd) throws SQLException {
 
     // Get the columns and their meta data.
     // NOTE: columnIndex for rsmd.getXXX methods STARTS AT 1 NOT 0
@@ -166,12 +164,12 @@ public class DBResultsetPrint {
         addTableName(rsmd.getTableName(i));
     }
   }
-  private static void addTableName(String name) {
+  private void addTableName(String name) {
     if (!tableNames.contains(name)) {
         tableNames.add(name);
     }
   }
-  private static void printCaption(int rowCount) {
+  private void printCaption(int rowCount) {
     StringJoiner sj = new StringJoiner(", ");
     for (String name : tableNames) {
         sj.add(name);
@@ -184,8 +182,48 @@ public class DBResultsetPrint {
 
     output.println(info);
   }
-  private static void printColumnLabels(StringBuilder strToPrint, StringBuilder rowSeparator)
+  /*
+  Prepare column labels to print as well as the row separator.
+  It should look something like this:
+  +--------+------------+------------+-----------+  (row separator)
+  | EMP_NO | BIRTH_DATE | FIRST_NAME | LAST_NAME |  (labels row)
+  +--------+------------+------------+-----------+  (row separator)
+   */
+  static void buildHeader(List<Column> columns, StringBuilder strToPrint, StringBuilder rowSeparator)
   {
+    // Iterate over columns
+    for (Column c : columns) {
+        int width = c.getWidth();
+
+      // Center the column label
+        String toPrint;
+        String name = c.getLabel();
+        int diff = width - name.length();
+
+        if ((diff%2) == 1) {
+            // diff is not divisible by 2, add 1 to width (and diff)
+            // so that we can have equal padding to the left and right
+            // of the column label.
+            width++;
+            diff++;
+            c.setWidth(width);
+        }
+
+        int paddingSize = diff/2; // InteliJ says casting to int is redundant.
+
+        // Cool String repeater code thanks to user102008 at stackoverflow.com
+        // (http://tinyurl.com/7x9qtyg) "Simple way to repeat a string in java"
+        String padding = new String(new char[paddingSize]).replace("\0", " ");
+
+        toPrint = "| " + padding + name + padding + " ";
+      // END centering the column label
+
+        strToPrint.append(toPrint);
+
+        rowSeparator.append("+");
+        rowSeparator.append(new String(new char[width + 2]).replace("\0", "-"));
+    }
+
     String lineSeparator = System.getProperty("line.separator");
 
     // Is this really necessary ??
@@ -196,26 +234,25 @@ public class DBResultsetPrint {
     strToPrint.append("|").append(lineSeparator);
     strToPrint.insert(0, rowSeparator);
     strToPrint.append(rowSeparator);
-
+  }
+  private void printColumnLabels(StringBuilder strToPrint, StringBuilder rowSeparator)
+  {
     // Print out the formatted column labels
     output.print(strToPrint.toString());
   }
-  private static void printRows(int rowCount, StringBuilder rowSeparator){
-    String format;
+  private void printRows(int rowCount, StringBuilder rowSeparator){
+    RowRenderer renderer = new RowRenderer(columns, scratch);
+    String separator = rowSeparator.toString();
+
+    example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
 
     // Print out the rows
     for (int i = 0; i < rowCount; i++) {
-        for (Column c : columns) {
-
-            // This should form a format string like: "%-60s"
-            format = String.format("| %%%s%ds ", c.getJustifyFlag(), c.getWidth());
-            output.print(
-                    String.format(format, c.getValue(i))
-            );
-        }
-
-        output.println("|");
-        output.print(rowSeparator.toString());
+        long t = metrics.start();
+        int len = renderer.render(i);
+        metrics.stop(example.metrics.EStage.FORMAT, t);
+        renderer.write(len, output);
+        output.print(separator);
     }
 
     output.println("");
@@ -0,0 +1,425 @@
+package example.db.print;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Prints a <code>ResultSet</code> as it is read instead of collecting
+ * every row first the way {@link DBResultsetPrint} does. Column widths
+ * are fixed before the first row is printed, either from
+ * <code>ResultSetMetaData.getColumnDisplaySize</code> or from a sample
+ * of the first rows, and an {@link EOverflow} policy decides what
+ * happens to a later value that does not fit. Only the sample is ever
+ * held in memory, so memory stays flat whatever the number of rows.
+ */
+public class DBResultsetStream {
+
+  private static final Logger logger = Logger.getLogger(DBResultsetStream.class);
+
+  /**
+   * Default number of rows read to work out the column widths.
+   */
+  public static final int DEFAULT_SAMPLE_ROWS = 100;
+
+  /**
+   * Default maximum width for text columns
+   * (like a <code>VARCHAR</code>) column.
+   */
+  private static final int DEFAULT_MAX_TEXT_COL_WIDTH = 150;
+
+  private final example.db.print.output.IOutput output;
+  private final int maxStringColWidth;
+  private final int sampleRows;
+  private final EOverflow overflow;
+  private final example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+
+  private final List<Column> columns = new ArrayList<>();
+  private final List<String> tableNames = new ArrayList<>();
+  private String[] cells;
+  private String rowSeparator;
+  private RowRenderer renderer;
+  private long rowCount = 0;
+  private TableSchema schema;
+  private PrintScratch scratch;
+  private String keyLabel;
+  private int keyColumn = 0;
+  private long lastKey;
+  private String watermarkLabel;
+  private int watermarkColumn = 0;
+  private String lastWatermark;
+
+  /**
+   * @param media Where the rows go
+   * @param maxStringColWidth Max. width of text columns
+   * @param sampleRows Rows read to fix the widths, 0 to use the
+   *                   display size reported by the driver instead
+   * @param overflow What to do with values wider than their column
+   */
+  public DBResultsetStream(example.db.print.output.IOutput media, int maxStringColWidth,
+                           int sampleRows, EOverflow overflow) {
+    this.output = media;
+    this.maxStringColWidth = maxStringColWidth;
+    this.sampleRows = sampleRows;
+    this.overflow = overflow;
+  }
+
+  /**
+   * Streams every row of <code>rs</code> to <code>media</code>.
+   *
+   * @param rs The <code>ResultSet</code> to print
+   * @param maxStringColWidth Max. width of text columns
+   * @param sampleRows Rows read to fix the widths, 0 to use the display size
+   * @param overflow What to do with values wider than their column
+   * @return Number of rows printed, -1 when <code>rs</code> could not be read
+   */
+  public static long streamResultSet(ResultSet rs, int maxStringColWidth, int sampleRows,
+                                     EOverflow overflow, example.db.print.output.IOutput media) {
+    return streamResultSet(rs, null, maxStringColWidth, sampleRows, overflow, media);
+  }
+
+  /**
+   * Same as {@link #streamResultSet(ResultSet, int, int, EOverflow, example.db.print.output.IOutput)}
+   * with the columns taken from <code>schema</code>, if not null.
+   */
+  public static long streamResultSet(ResultSet rs, TableSchema schema, int maxStringColWidth, int sampleRows,
+                                     EOverflow overflow, example.db.print.output.IOutput media) {
+    return streamResultSet(rs, schema, maxStringColWidth, sampleRows, overflow, media, PrintScratch.forThread());
+  }
+
+  static long streamResultSet(ResultSet rs, TableSchema schema, int maxStringColWidth, int sampleRows,
+                              EOverflow overflow, example.db.print.output.IOutput media, PrintScratch scratch) {
+    try {
+        if (rs == null) {
+            logger.error("Result set is null!");
+            return -1;
+        }
+        if (rs.isClosed()) {
+            logger.error("Result Set is closed!");
+            return -1;
+        }
+    } catch (SQLException e) {
+        logger.error("SQL exception");
+        return -1;
+    }
+    if (maxStringColWidth < 1) {
+        logger.warn("Invalid max. varchar column width. Using default!");
+        maxStringColWidth = DEFAULT_MAX_TEXT_COL_WIDTH;
+    }
+    if (sampleRows < 0) {
+        logger.warn("Invalid sample rows number. Using default!");
+        sampleRows = DEFAULT_SAMPLE_ROWS;
+    }
+    if (overflow == null) {
+        overflow = EOverflow.TRUNCATE;
+    }
+    if (media == null) {
+        logger.warn("Results will go to console");
+        media = new example.db.print.output.ToConsole();
+    }
+    DBResultsetStream printer = new DBResultsetStream(media, maxStringColWidth, sampleRows, overflow);
+    printer.useSchema(schema);
+    printer.useScratch(scratch);
+    return printer.print(rs);
+  }
+
+  /**
+   * Prints the caption, the column labels and every row of
+   * <code>rs</code>.
+   *
+   * @return Number of rows printed, -1 when <code>rs</code> could not be read
+   */
+  public long print(ResultSet rs) {
+    try {
+        begin(rs);
+        printRows(rs);
+        finish();
+    } catch (SQLException e) {
+        logger.error("SQL exception");
+        return -1;
+    }
+    return rowCount;
+  }
+
+  /**
+   * Reads the meta data and the sample of <code>rs</code>, fixes the
+   * column widths and prints the caption, the labels and the sampled
+   * rows.
+   *
+   * @return Number of rows sampled and printed
+   */
+  public int begin(ResultSet rs) throws SQLException {
+    TableSchema s = readColumns(rs);
+    int columnCount = columns.size();
+
+    int sampled = 0;
+    if (sampleRows > 0) {
+        long t = metrics.start();
+        while (sampled < sampleRows && rs.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                Column c = columns.get(i);
+                c.getTypeCategory().addValue(rs, c, maxStringColWidth, i);
+            }
+            readKey(rs);
+            sampled++;
+            t = metrics.lap(example.metrics.EStage.FETCH, t);
+        }
+    } else {
+        for (int i = 0; i < columnCount; i++) {
+            fixWidth(columns.get(i), s.getDisplaySize(rs, i));
+        }
+    }
+
+    printHeader();
+    for (int r = 0; r < sampled; r++) {
+        for (int i = 0; i < columnCount; i++) {
+            cells[i] = columns.get(i).getValue(r);
+        }
+        printCells();
+    }
+    for (Column c : columns) {
+        c.clearValues();
+    }
+    return sampled;
+  }
+
+  /**
+   * Same as {@link #begin(ResultSet)} for rows another thread already
+   * converted to text with {@link ECatagory#toText}: the columns are
+   * read from the meta data of <code>rs</code>, which is not moved, and
+   * the widths are fixed from the rows of <code>sample</code>, which are
+   * printed.
+   *
+   * @param sample Up to the number of sample rows, one value per column
+   */
+  public void begin(ResultSet rs, List<String[]> sample) throws SQLException {
+    TableSchema s = readColumns(rs);
+    int columnCount = columns.size();
+
+    if (sampleRows > 0) {
+        for (String[] row : sample) {
+            for (int i = 0; i < columnCount; i++) {
+                Column c = columns.get(i);
+                c.setWidth(Math.max(c.getWidth(), row[i].length()));
+            }
+        }
+    } else {
+        for (int i = 0; i < columnCount; i++) {
+            fixWidth(columns.get(i), s.getDisplaySize(rs, i));
+        }
+    }
+
+    printHeader();
+    for (String[] row : sample) {
+        System.arraycopy(row, 0, cells, 0, columnCount);
+        printCells();
+    }
+  }
+
+  /**
+   * Prints a row converted to text by another thread, after
+   * {@link #begin(ResultSet, List)}.
+   */
+  public void printRow(String[] row) {
+    System.arraycopy(row, 0, cells, 0, cells.length);
+    fitCells();
+    printCells();
+  }
+
+  /**
+   * Prints the remaining rows of <code>rs</code>. May be called again
+   * with another <code>ResultSet</code> of the same shape, for example
+   * the next page of a chunked read.
+   *
+   * @return Number of rows printed by this call
+   */
+  public int printRows(ResultSet rs) throws SQLException {
+    int columnCount = columns.size();
+    int printed = 0;
+    long t = metrics.start();
+    while (rs.next()) {
+        for (int i = 0; i < columnCount; i++) {
+            Column c = columns.get(i);
+            cells[i] = c.getTypeCategory().toText(rs, c, maxStringColWidth, i);
+        }
+        fitCells();
+        readKey(rs);
+        metrics.stop(example.metrics.EStage.FETCH, t);
+        printCells();
+        printed++;
+        t = metrics.start();
+    }
+    return printed;
+  }
+
+  /**
+   * Prints the closing line with the number of rows printed.
+   */
+  public void finish() {
+    String info = "Streamed " + rowCount;
+    info += rowCount == 1 ? " row from " : " rows from ";
+    output.println(info + describeTables());
+    output.println("");
+  }
+
+  /**
+   * Remembers the value of the integer column labelled
+   * <code>label</code> for every row read, see {@link #getLastKey()}.
+   * Must be called before {@link #begin(ResultSet)}.
+   */
+  public void trackKey(String label) {
+    this.keyLabel = label;
+  }
+
+  /**
+   * Remembers the value of the column labelled <code>label</code>, as
+   * text, for every row read, see {@link #getLastWatermark()}. Must be
+   * called before {@link #begin(ResultSet)}.
+   */
+  public void trackWatermark(String label) {
+    this.watermarkLabel = label;
+  }
+
+  /**
+   * Takes the columns from <code>schema</code> instead of reading them
+   * from the meta data. Must be called before {@link #begin(ResultSet)}.
+   */
+  public void useSchema(TableSchema schema) {
+    this.schema = schema;
+  }
+
+  /**
+   * Lays rows out in the buffers of <code>scratch</code> instead of
+   * buffers of its own. Must be called before {@link #begin(ResultSet)}.
+   */
+  public void useScratch(PrintScratch scratch) {
+    this.scratch = scratch;
+  }
+
+  /**
+   * Returns the key of the last row read, when a key is tracked.
+   */
+  public long getLastKey() {
+    return lastKey;
+  }
+
+  /**
+   * Returns the watermark column of the last row read, when one is
+   * tracked.
+   */
+  public String getLastWatermark() {
+    return lastWatermark;
+  }
+
+  /**
+   * Returns the number of rows printed so far.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  private TableSchema readColumns(ResultSet rs) throws SQLException {
+    TableSchema s = schema != null ? schema : TableSchema.uncached();
+    columns.addAll(s.newColumns(rs));
+    tableNames.addAll(s.getTableNames(rs));
+    int columnCount = columns.size();
+
+    for (int i = 1; i <= columnCount; i++) {
+        Column c = columns.get(i - 1);
+        if (c.getTypeCategory() == ECatagory.STRING) {
+            c.justifyLeft();
+        }
+        if (c.getLabel().equalsIgnoreCase(keyLabel)) {
+            keyColumn = i;
+        }
+        if (c.getLabel().equalsIgnoreCase(watermarkLabel)) {
+            watermarkColumn = i;
+        }
+    }
+    cells = new String[columnCount];
+    return s;
+  }
+
+  private void printHeader() {
+    StringBuilder strToPrint = scratch != null ? scratch.header() : new StringBuilder();
+    StringBuilder separator = scratch != null ? scratch.separator() : new StringBuilder();
+    DBResultsetPrint.buildHeader(columns, strToPrint, separator);
+    rowSeparator = separator.toString();
+    renderer = new RowRenderer(columns, scratch);
+
+    output.println("Streaming rows from " + describeTables());
+    output.print(strToPrint.toString());
+  }
+
+  /**
+   * Fits the values in <code>cells</code> to their columns, rebuilding
+   * the separator when the overflow policy widened one.
+   */
+  private void fitCells() {
+    boolean widened = false;
+    for (int i = 0; i < cells.length; i++) {
+        Column c = columns.get(i);
+        int width = c.getWidth();
+        cells[i] = overflow.fit(c, cells[i]);
+        widened |= c.getWidth() != width;
+    }
+    if (widened) {
+        rowSeparator = separator();
+        renderer = new RowRenderer(columns, scratch);
+    }
+  }
+
+  private void readKey(ResultSet rs) throws SQLException {
+    if (keyColumn > 0) {
+        lastKey = rs.getLong(keyColumn);
+    }
+    if (watermarkColumn > 0) {
+        lastWatermark = rs.getString(watermarkColumn);
+    }
+  }
+
+  private void fixWidth(Column c, int displaySize) {
+    int width;
+    if (c.getTypeCategory() == ECatagory.OTHER) {
+        width = c.getTypeName().length() + 2;
+    } else {
+        width = Math.min(displaySize, maxStringColWidth);
+    }
+    // Always leave room for NULL
+    width = Math.max(width, 4);
+    c.setWidth(Math.max(c.getWidth(), width));
+  }
+
+  private void printCells() {
+    long t = metrics.start();
+    int len = renderer.render(cells);
+    metrics.stop(example.metrics.EStage.FORMAT, t);
+    renderer.write(len, output);
+    output.print(rowSeparator);
+    rowCount++;
+  }
+
+  private String separator() {
+    StringBuilder sb = new StringBuilder();
+    for (Column c : columns) {
+        sb.append("+");
+        for (int i = 0; i < c.getWidth() + 2; i++) {
+            sb.append('-');
+        }
+    }
+    String lineSeparator = System.getProperty("line.separator");
+    lineSeparator = lineSeparator == null ? "\n" : lineSeparator;
+    return sb.append("+").append(lineSeparator).toString();
+  }
+
+  private String describeTables() {
+    StringJoiner sj = new StringJoiner(", ");
+    for (String name : tableNames) {
+        sj.add(name);
+    }
+    return (tableNames.size() > 1 ? "tables " : "table ") + sj.toString();
+  }
+}
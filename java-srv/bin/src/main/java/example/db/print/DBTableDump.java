@@ -0,0 +1,364 @@
+package example.db.print;
+
+import java.sql.*;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Dumps every row of a table without a row limit and without holding
+ * the rows in memory, on either side of the connection.
+ *
+ * <p>Without paging the whole table is read with one query whose rows
+ * the driver streams: with a fetch size of {@link #STREAM_FETCH_SIZE}
+ * MySQL Connector/J reads row by row, with a positive fetch size and
+ * <code>useCursorFetch=true</code> on the connection URL it reads that
+ * many rows at a time from a server-side cursor.</p>
+ *
+ * <p>With paging the table is read in chunks of <code>pageSize</code>
+ * rows ordered by its integer primary key, each chunk starting after
+ * the last key of the one before
+ * (<code>WHERE id &gt; ? ORDER BY id LIMIT ?</code>),
+ * so no server result set is held open for long and an interrupted
+ * dump can be resumed from the last key logged.</p>
+ */
+public class DBTableDump {
+
+    private static final Logger logger = Logger.getLogger(DBTableDump.class);
+
+    /**
+     * Fetch size that makes MySQL Connector/J stream rows one by one.
+     */
+    public static final int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * Rows per page of an incremental dump when none is given.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 10000;
+
+    // Before any update time the server can store
+    private static final String EPOCH = "1970-01-01 00:00:00";
+
+    /**
+     * Dumps table <code>tableName</code> using the given database
+     * connection <code>conn</code>.
+     *
+     * @param conn Database connection object (java.sql.Connection)
+     * @param tableName Name of the database table
+     * @param fetchSize Driver fetch size, see {@link #STREAM_FETCH_SIZE}
+     * @param pageSize Rows per primary key page, less than 1 to read the table in one query
+     * @param fromKey Only rows with a primary key above this are dumped when paging
+     * @param maxStringColWidth Max. width of text columns
+     * @param sampleRows Rows read to fix the column widths, 0 to use the display size
+     * @param overflow What to do with values wider than their column
+     * @return Number of rows printed, -1 when the table could not be read
+     */
+    public static long dumpTable(Connection conn, String tableName, int fetchSize, int pageSize, long fromKey,
+                                 int maxStringColWidth, int sampleRows, EOverflow overflow,
+                                 example.db.print.output.IOutput output) {
+        if (tableName == null) {
+            logger.error("No table name (tableName is null)!");
+            return -1;
+        }
+        if (tableName.length() == 0) {
+            logger.error("Empty table name!");
+            return -1;
+        }
+        return dumpTable(conn, example.db.select.SelectStatement.all(tableName), fetchSize, pageSize, fromKey,
+                maxStringColWidth, sampleRows, overflow, output);
+    }
+
+    /**
+     * Dumps the rows <code>select</code> reads, see
+     * {@link #dumpTable(Connection, String, int, int, long, int, int, EOverflow, example.db.print.output.IOutput)}.
+     * Pages follow the primary key, so a select with its own order, or
+     * without the key among its columns, is read in one query.
+     *
+     * @param select Columns, rows and order to dump
+     * @return Number of rows printed
+     */
+    public static long dumpTable(Connection conn, example.db.select.SelectStatement select, int fetchSize,
+                                 int pageSize, long fromKey, int maxStringColWidth, int sampleRows,
+                                 EOverflow overflow, example.db.print.output.IOutput output) {
+        if (conn == null) {
+            logger.error("No connection to database (Connection is null)!");
+            return -1;
+        }
+        String tableName = select.getTable();
+
+        DBResultsetStream printer = new DBResultsetStream(output, maxStringColWidth, sampleRows, overflow);
+        try {
+            if (conn.isClosed()) {
+                logger.error("Connection is closed!");
+                return -1;
+            }
+
+            printer.useSchema(SchemaCache.get(conn, select));
+            printer.useScratch(PrintScratch.forThread());
+            String key = pageSize > 0 ? integerKey(conn, tableName) : null;
+            if (pageSize > 0 && key == null) {
+                logger.warn("Table " + tableName + " has no single integer column primary key. Streaming it in one query!");
+            } else if (key != null && (select.isOrdered() || !select.selects(key))) {
+                logger.warn("Selection of table " + tableName + " is ordered or leaves out " + key
+                        + ". Streaming it in one query!");
+                key = null;
+            }
+
+            if (key == null) {
+                dumpAll(conn, select, fetchSize, printer);
+            } else {
+                dumpPages(conn, select, key, fetchSize, pageSize, fromKey, printer);
+            }
+            printer.finish();
+
+        } catch (SQLException e) {
+            logger.error(e.getMessage());
+            return -1;
+        }
+        return printer.getRowCount();
+    }
+
+    /**
+     * Dumps the rows of table <code>tableName</code> added or changed
+     * after <code>since</code>, in pages of <code>pageSize</code> rows.
+     *
+     * <p>A table with a <code>watermarkColumn</code> (an update time
+     * such as the <code>updated_at</code> of changeset 010) is read in
+     * <code>(watermarkColumn, key)</code> order, so changed rows come
+     * round again. Rows changed within the last <code>lagMs</code> are
+     * left for the next run, as a transaction still open may yet commit
+     * rows with an earlier time. Other tables are read in key order and
+     * only new rows are found. A table without a single integer column
+     * primary key is dumped whole.</p>
+     *
+     * @param since Where the previous dump got to, {@link Watermark#START} the first time
+     * @param watermarkColumn Name of the update time column
+     * @param lagMs How old a change must be before it is dumped
+     * @return Where this dump got to, <code>since</code> when there
+     *         were no new rows or the table was dumped whole, null when
+     *         it could not be read
+     */
+    public static Watermark dumpSince(Connection conn, String tableName, Watermark since, String watermarkColumn,
+                                      long lagMs, int fetchSize, int pageSize,
+                                      int maxStringColWidth, int sampleRows, EOverflow overflow,
+                                      example.db.print.output.IOutput output) {
+        if (conn == null) {
+            logger.error("No connection to database (Connection is null)!");
+            return null;
+        }
+        if (tableName == null || tableName.length() == 0) {
+            logger.error("No table name!");
+            return null;
+        }
+        if (pageSize < 1) {
+            logger.warn("Invalid page size. Using default!");
+            pageSize = DEFAULT_PAGE_SIZE;
+        }
+        if (since == null) {
+            since = Watermark.START;
+        }
+
+        DBResultsetStream printer = new DBResultsetStream(output, maxStringColWidth, sampleRows, overflow);
+        Watermark reached = null;
+        try {
+            if (conn.isClosed()) {
+                logger.error("Connection is closed!");
+                return null;
+            }
+
+            printer.useSchema(SchemaCache.get(conn, tableName));
+            printer.useScratch(PrintScratch.forThread());
+            String key = integerKey(conn, tableName);
+            if (key == null) {
+                logger.warn("Table " + tableName + " has no single integer column primary key. Dumping all of it!");
+                dumpAll(conn, example.db.select.SelectStatement.all(tableName), fetchSize, printer);
+                reached = since;
+            } else if (watermarkColumn != null && hasColumn(conn, tableName, watermarkColumn)) {
+                reached = dumpChanged(conn, tableName, key, watermarkColumn, lagMs, fetchSize, pageSize,
+                        since, printer);
+            } else {
+                dumpPages(conn, example.db.select.SelectStatement.all(tableName), key, fetchSize, pageSize, since.getKey(), printer);
+                reached = printer.getRowCount() > 0 ? new Watermark(printer.getLastKey(), null) : since;
+            }
+            printer.finish();
+
+        } catch (SQLException e) {
+            logger.error(e.getMessage());
+            return null;
+        }
+        logger.info("Dumped " + printer.getRowCount() + " new rows of " + tableName + " after " + since);
+        return reached;
+    }
+
+    private static void dumpAll(Connection conn, example.db.select.SelectStatement select, int fetchSize,
+                                DBResultsetStream printer) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(select.sql(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            select.bind(stmt);
+            example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+            long t = metrics.start();
+            try (ResultSet rs = stmt.executeQuery()) {
+                metrics.stop(example.metrics.EStage.QUERY, t);
+                printer.begin(rs);
+                printer.printRows(rs);
+            }
+        }
+    }
+
+    private static void dumpPages(Connection conn, example.db.select.SelectStatement select, String key,
+                                  int fetchSize, int pageSize, long fromKey,
+                                  DBResultsetStream printer) throws SQLException {
+        String tableName = select.getTable();
+        String quotedKey = example.db.select.SelectStatement.quote(key);
+        String sql = select.sql(quotedKey + " > ?", quotedKey) + " LIMIT ?";
+        printer.trackKey(key);
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            int next = select.bind(stmt);
+            example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+
+            long after = fromKey;
+            boolean first = true;
+            int rows;
+            do {
+                stmt.setLong(next, after);
+                stmt.setInt(next + 1, pageSize);
+                long t = metrics.start();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    metrics.stop(example.metrics.EStage.QUERY, t);
+                    if (first) {
+                        rows = printer.begin(rs) + printer.printRows(rs);
+                        first = false;
+                    } else {
+                        rows = printer.printRows(rs);
+                    }
+                }
+                if (rows > 0) {
+                    after = printer.getLastKey();
+                    logger.info("Dumped " + tableName + " up to " + key + " " + after);
+                }
+            } while (rows == pageSize);
+        }
+    }
+
+    private static Watermark dumpChanged(Connection conn, String tableName, String key, String column,
+                                         long lagMs, int fetchSize, int pageSize, Watermark since,
+                                         DBResultsetStream printer) throws SQLException {
+        String until;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT NOW(3) - INTERVAL ? MICROSECOND")) {
+            stmt.setLong(1, Math.max(lagMs, 0) * 1000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                until = rs.getString(1);
+            }
+        }
+        String quotedColumn = example.db.select.SelectStatement.quote(column);
+        String quotedKey = example.db.select.SelectStatement.quote(key);
+        String sql = "SELECT * FROM " + example.db.select.SelectStatement.quoteName(tableName)
+                + " WHERE " + quotedColumn + " < ? AND (" + quotedColumn + " > ? OR (" + quotedColumn + " = ? AND "
+                + quotedKey + " > ?))"
+                + " ORDER BY " + quotedColumn + ", " + quotedKey + " LIMIT ?";
+        printer.trackKey(key);
+        printer.trackWatermark(column);
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+
+            String afterTime = since.getUpdatedAt() != null ? since.getUpdatedAt() : EPOCH;
+            long afterKey = since.getUpdatedAt() != null ? since.getKey() : Long.MIN_VALUE;
+            boolean first = true;
+            int rows;
+            do {
+                stmt.setString(1, until);
+                stmt.setString(2, afterTime);
+                stmt.setString(3, afterTime);
+                stmt.setLong(4, afterKey);
+                stmt.setInt(5, pageSize);
+                long t = metrics.start();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    metrics.stop(example.metrics.EStage.QUERY, t);
+                    if (first) {
+                        rows = printer.begin(rs) + printer.printRows(rs);
+                        first = false;
+                    } else {
+                        rows = printer.printRows(rs);
+                    }
+                }
+                if (rows > 0) {
+                    afterTime = printer.getLastWatermark();
+                    afterKey = printer.getLastKey();
+                    logger.info("Dumped " + tableName + " up to " + column + " " + afterTime + ", " + key + " " + afterKey);
+                }
+            } while (rows == pageSize);
+
+            return printer.getRowCount() > 0 ? new Watermark(afterKey, afterTime) : since;
+        }
+    }
+
+    /**
+     * Returns true when <code>tableName</code> has a column named
+     * <code>column</code>.
+     */
+    public static boolean hasColumn(Connection conn, String tableName, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, tableName, column)) {
+            while (rs.next()) {
+                // The name is a pattern, so _ also matches other tables
+                if (rs.getString("TABLE_NAME").equalsIgnoreCase(tableName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the name of the primary key column of <code>tableName</code>
+     * or <code>null</code> when it has none or more than one.
+     */
+    public static String primaryKey(Connection conn, String tableName) throws SQLException {
+        String key = null;
+        try (ResultSet rs = conn.getMetaData().getPrimaryKeys(conn.getCatalog(), null, tableName)) {
+            while (rs.next()) {
+                if (key != null) {
+                    return null;
+                }
+                key = rs.getString("COLUMN_NAME");
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the name of the primary key column of <code>tableName</code>
+     * when it is a single integer column, the only kind of key a dump
+     * can page by, or <code>null</code> otherwise.
+     */
+    public static String integerKey(Connection conn, String tableName) throws SQLException {
+        String key = primaryKey(conn, tableName);
+        if (key == null) {
+            return null;
+        }
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, tableName, key)) {
+            while (rs.next()) {
+                // The name is a pattern, so _ also matches other tables
+                if (!rs.getString("TABLE_NAME").equalsIgnoreCase(tableName)) {
+                    continue;
+                }
+                switch (rs.getInt("DATA_TYPE")) {
+                    case Types.TINYINT:
+                    case Types.SMALLINT:
+                    case Types.INTEGER:
+                    case Types.BIGINT:
+                        return key;
+                    default:
+                        return null;
+                }
+            }
+            return null;
+        }
+    }
+}
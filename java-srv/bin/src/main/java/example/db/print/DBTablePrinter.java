@@ -37,7 +37,9 @@ import org.apache.log4j.Logger;
 /**
  * Just a utility to print rows from a given DB table or a
  * <code>ResultSet</code> to standard out, formatted to look
- * like a table with rows and columns with borders.
+ * like a table with rows and columns with borders. Every call
+ * goes through a {@link PrintSession}, so it is safe to call
+ * from several threads at once.
  *
  * <p>Stack Overflow website
  * (<a target="_blank" href="http://stackoverflow.com">stackoverflow.com</a>)
@@ -52,7 +54,7 @@ public class DBTablePrinter {
     /**
      * Default maximum number of rows to query and print.
      */
-    private static final int DEFAULT_MAX_ROWS = 10;
+    static final int DEFAULT_MAX_ROWS = 10;
 
     /**
      * Default maximum width for text columns
@@ -75,6 +77,22 @@ public class DBTablePrinter {
         printTable(conn, tableName, DEFAULT_MAX_ROWS, DEFAULT_MAX_TEXT_COL_WIDTH, output);
     }
 
+    /**
+     * Overloaded method that prints rows from table <code>tableName</code>
+     * using a connection borrowed from <code>pool</code> and given back
+     * once the table has been printed.
+     *
+     * @param pool Pool to borrow the database connection from
+     * @param tableName Name of the database table
+     */
+    public static void printTable(example.db.pool.ConnectionPool pool, String tableName, example.db.print.output.IOutput output) {
+        try (Connection conn = pool.borrow()) {
+            printTable(conn, tableName, DEFAULT_MAX_ROWS, DEFAULT_MAX_TEXT_COL_WIDTH, output);
+        } catch (SQLException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
     /**
      * Overloaded method that prints rows from table <code>tableName</code>
      * to standard out using the given database connection
@@ -105,51 +123,56 @@ public class DBTablePrinter {
      * @param maxStringColWidth Max. width of text columns
      */
     public static void printTable(Connection conn, String tableName, int maxRows, int maxStringColWidth, example.db.print.output.IOutput output) {
-        if (conn == null) {
-            logger.error("No connection to database (Connection is null)!");
-            return;
-        }
-        if (tableName == null) {
-            logger.error("No table name (tableName is null)!");
-            return;
-        }
-        if (tableName.length() == 0) {
-            logger.error("Empty table name!");
-            return;
-        }
-        if (maxRows < 1) {
-            logger.warn("Invalid max. rows number. Using default!");
-            maxRows = DEFAULT_MAX_ROWS;
-        }
-
-        Statement stmt = null;
-        ResultSet rs = null;
-        try {
-            if (conn.isClosed()) {
-                logger.error("Connection is closed!");
-                return;
-            }
+        new PrintSession(maxStringColWidth).printTable(conn, tableName, maxRows, output);
+    }
 
-            String sqlSelectAll = "SELECT * FROM " + tableName + " LIMIT " + maxRows;
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sqlSelectAll);
+    /**
+     * Prints up to <code>maxRows</code> of the rows <code>select</code>
+     * reads using the given database connection <code>conn</code>.
+     *
+     * @param conn Database connection object (java.sql.Connection)
+     * @param select Columns, rows and order to print
+     * @param maxRows Number of max. rows to query and print
+     * @param maxStringColWidth Max. width of text columns
+     * @return False when the table could not be read
+     */
+    public static boolean printTable(Connection conn, example.db.select.SelectStatement select, int maxRows,
+                                     int maxStringColWidth, example.db.print.output.IOutput output) {
+        return new PrintSession(maxStringColWidth).printTable(conn, select, maxRows, output);
+    }
 
-            DBResultsetPrint.printResultSet(rs, maxStringColWidth, output);
+    /**
+     * Streams rows from table <code>tableName</code> using the given
+     * database connection <code>conn</code> without holding them in
+     * memory, see {@link DBResultsetStream}.
+     *
+     * @param conn Database connection object (java.sql.Connection)
+     * @param tableName Name of the database table
+     * @param maxRows Number of max. rows to query and print, less than 1 for all rows
+     * @param maxStringColWidth Max. width of text columns
+     * @param sampleRows Rows read to fix the column widths, 0 to use the display size
+     * @param overflow What to do with values wider than their column
+     * @return Number of rows printed, -1 when the table could not be read
+     */
+    public static long streamTable(Connection conn, String tableName, int maxRows, int maxStringColWidth,
+                                   int sampleRows, EOverflow overflow, example.db.print.output.IOutput output) {
+        return new PrintSession(maxStringColWidth, sampleRows, overflow, null).streamTable(conn, tableName, maxRows, output);
+    }
 
-        } catch (SQLException e) {
-            logger.error(e.getMessage());
-        } finally {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (rs != null) {
-                    rs.close();
-                }
-            } catch (SQLException ignore) {
-                // ignore
-            }
-        }
+    /**
+     * Streams the rows <code>select</code> reads using the given
+     * database connection <code>conn</code>, see
+     * {@link #streamTable(Connection, String, int, int, int, EOverflow, example.db.print.output.IOutput)}.
+     *
+     * @param select Columns, rows and order to print
+     * @param fetchSize Driver fetch size, see {@link DBTableDump#STREAM_FETCH_SIZE}
+     * @return Number of rows printed, -1 when the table could not be read
+     */
+    public static long streamTable(Connection conn, example.db.select.SelectStatement select, int maxRows,
+                                   int fetchSize, int maxStringColWidth, int sampleRows, EOverflow overflow,
+                                   example.db.print.output.IOutput output) {
+        return new PrintSession(maxStringColWidth, sampleRows, overflow, null)
+                .streamTable(conn, select, maxRows, fetchSize, output);
     }
 
     /**
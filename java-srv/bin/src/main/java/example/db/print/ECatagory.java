@@ -5,14 +5,13 @@ import java.sql.*;
 public enum ECatagory {
   OTHER(){
     @Override
-    public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
-      String value = "(" + c.getTypeName() + ")";
-      c.adjustWidth(value);
+    public String toText(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+      return "(" + c.getTypeName() + ")";
     }
   },
   STRING(){
     @Override
-    public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+    public String toText(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
       String value = rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
       // Left justify the text columns
       c.justifyLeft();
@@ -21,43 +20,79 @@ public enum ECatagory {
       if (value.length() > maxStringColWidth) {
           value = value.substring(0, maxStringColWidth - 3) + "...";
       }
-      c.adjustWidth(value);
+      return value;
     }
   },
   INTEGER(){
+    @Override
+    public String toText(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+      return rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
+    }
+
     @Override
     public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
-      String value = rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
-      c.adjustWidth(value);
+      if (c.getStorage() != EStorage.LONG) {
+        super.addValue(rs, c, maxStringColWidth, i);
+        return;
+      }
+      long value = rs.getLong(i+1);
+      if (rs.wasNull()) {
+        c.addNull();
+      } else {
+        c.addLong(value);
+      }
     }
   },
   DOUBLE(){
     @Override
-    public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+    public String toText(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
       String value = rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
       if (!value.equals("NULL")) {
           Double dValue = rs.getDouble(i+1);
           value = String.format("%.3f", dValue);
       }
-      c.adjustWidth(value);
+      return value;
+    }
+
+    @Override
+    public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+      double value = rs.getDouble(i+1);
+      if (rs.wasNull()) {
+        c.addNull();
+      } else {
+        c.addDouble(value);
+      }
     }
   },
   DATETIME(){
     @Override
-    public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
-      String value = rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
-      c.adjustWidth(value);
+    public String toText(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+      return rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
     }
   },
   BOOLEAN(){
     @Override
-    public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
-      String value = rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
-      c.adjustWidth(value);
+    public String toText(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+      return rs.getString(i+1) == null ? "NULL" : rs.getString(i+1);
     }
   };
 
-  public abstract void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException;
+  /**
+   * Converts the value of column <code>i</code> (0 based) in the current
+   * row of <code>rs</code> to the text that will be printed, without
+   * storing it in the column.
+   */
+  public abstract String toText(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException;
+
+  /**
+   * Converts the value of column <code>i</code> (0 based) in the current
+   * row of <code>rs</code>, stores it in <code>c</code> and adjusts the
+   * width of the column.
+   */
+  public void addValue(ResultSet rs, Column c, int maxStringColWidth, int i) throws SQLException {
+    c.adjustWidth(toText(rs, c, maxStringColWidth, i));
+  }
+
   /**
    * Takes a generic SQL type and returns the category this type
    * belongs to. Types are categorized according to print formatting
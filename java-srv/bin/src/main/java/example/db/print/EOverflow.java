@@ -0,0 +1,45 @@
+package example.db.print;
+
+/**
+ * What a streaming print does with a value that is wider than the
+ * width its column was fixed to before the first row was printed.
+ */
+public enum EOverflow {
+  /**
+   * Cut the value to the column width, ending it with <code>...</code>
+   */
+  TRUNCATE(){
+    @Override
+    public String fit(Column c, String value) {
+      int width = c.getWidth();
+      if (value.length() <= width)
+        return value;
+      if (width <= 3)
+        return value.substring(0, width);
+      return value.substring(0, width - 3) + "...";
+    }
+  },
+  /**
+   * Print the whole value and let this one row run past the border.
+   */
+  OVERFLOW(){
+    @Override
+    public String fit(Column c, String value) {
+      return value;
+    }
+  },
+  /**
+   * Widen the column from this row on. Rows already printed keep
+   * their narrower width.
+   */
+  WIDEN(){
+    @Override
+    public String fit(Column c, String value) {
+      if (value.length() > c.getWidth())
+        c.setWidth(value.length());
+      return value;
+    }
+  };
+
+  public abstract String fit(Column c, String value);
+}
@@ -0,0 +1,40 @@
+package example.db.print;
+
+import java.sql.Types;
+
+/**
+ * How a {@link Column} holds its values.
+ */
+public enum EStorage {
+  /**
+   * In a <code>long[]</code>, for integer columns.
+   */
+  LONG,
+  /**
+   * In a <code>double[]</code>, for <code>DOUBLE</code> columns.
+   */
+  DOUBLE,
+  /**
+   * As UTF-8 bytes packed one after another, for everything else.
+   */
+  TEXT;
+
+  /**
+   * Picks the storage for a column of the given category and type.
+   * <code>BIGINT UNSIGNED</code> may not fit a <code>long</code> so it
+   * is held as text.
+   */
+  public static EStorage forColumn(ECatagory category, int type, String typeName) {
+    switch (category) {
+      case INTEGER:
+        if (type == Types.BIGINT && typeName != null && typeName.toUpperCase().contains("UNSIGNED")) {
+          return TEXT;
+        }
+        return LONG;
+      case DOUBLE:
+        return DOUBLE;
+      default:
+        return TEXT;
+    }
+  }
+}
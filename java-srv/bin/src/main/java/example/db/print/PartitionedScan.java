@@ -0,0 +1,400 @@
+package example.db.print;
+
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dumps one table over several connections at once.
+ *
+ * <p>The range of the table's integer primary key, from
+ * <code>MIN</code> to <code>MAX</code>, is cut into partitions of equal
+ * width. A pool of threads reads them in key order, each thread with a
+ * connection of its own from the {@link example.db.pool.ConnectionPool},
+ * converts the values with {@link ECatagory#toText} and hands the rows
+ * over in batches through a bounded queue of its own. The calling
+ * thread takes the queues one after the other, so the rows come out in
+ * key order, and prints them with a {@link DBResultsetStream}. The
+ * output is the same as that of
+ * {@link DBTableDump#dumpTable(Connection, example.db.select.SelectStatement, int, int, long, int, int, EOverflow, example.db.print.output.IOutput)}.</p>
+ *
+ * <p>A reader whose queue is full waits for the printer, so no more than
+ * <code>queueBatches</code> batches per partition are held in memory.
+ * Partitions are handed to the threads in key order, so the one being
+ * printed is always being read. Keys are rarely spread evenly, so there
+ * should be several partitions per thread to keep the threads busy.</p>
+ *
+ * <p>The reader connections are all borrowed before the first
+ * partition is read. Borrowed one by one, readers of later partitions
+ * could take the last free connections, fill their queues and wait for
+ * the printer, which waits for the first partition, which waits for a
+ * connection. When the pool has fewer free connections than
+ * <code>threads</code>, fewer threads are used.</p>
+ */
+public class PartitionedScan {
+
+  private static final Logger logger = Logger.getLogger(PartitionedScan.class);
+
+  public static final int DEFAULT_PARTITIONS_PER_THREAD = 4;
+  public static final int DEFAULT_QUEUE_BATCHES = 8;
+
+  /**
+   * Rows handed over at a time.
+   */
+  static final int BATCH_ROWS = 512;
+
+  // Put after the last batch of a partition
+  private static final List<String[]> END = Collections.emptyList();
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private final String connectionStr;
+  private final int threads;
+  private final int partitions;
+  private final int queueBatches;
+
+  /**
+   * @param connectionStr Pool the readers borrow their connections from,
+   *                      which should hold one more than <code>threads</code>
+   * @param threads Number of partitions read at once
+   * @param partitions Number of key ranges, less than 1 for
+   *                   {@link #DEFAULT_PARTITIONS_PER_THREAD} per thread
+   * @param queueBatches Batches of rows a reader may get ahead by
+   */
+  public PartitionedScan(String connectionStr, int threads, int partitions, int queueBatches) {
+    this.connectionStr = connectionStr;
+    if (threads < 1) {
+      logger.warn("Invalid scan threads. Using 1!");
+      threads = 1;
+    }
+    this.threads = threads;
+    this.partitions = partitions < 1 ? threads * DEFAULT_PARTITIONS_PER_THREAD : partitions;
+    if (queueBatches < 1) {
+      logger.warn("Invalid scan queue size. Using default!");
+      queueBatches = DEFAULT_QUEUE_BATCHES;
+    }
+    this.queueBatches = queueBatches;
+  }
+
+  /**
+   * Dumps the rows <code>select</code> reads. A table without a single
+   * integer primary key, an empty one and a select with its own order
+   * are dumped with one query on <code>conn</code> instead.
+   *
+   * @param conn Connection for the key range and the column meta data
+   * @param fetchSize Driver fetch size of the readers, see {@link DBTableDump#STREAM_FETCH_SIZE}
+   * @return Number of rows printed, -1 when the table could not be read
+   */
+  public long dump(Connection conn, example.db.select.SelectStatement select, int fetchSize,
+                   int maxStringColWidth, int sampleRows, EOverflow overflow,
+                   example.db.print.output.IOutput output) {
+    if (conn == null) {
+      logger.error("No connection to database (Connection is null)!");
+      return -1;
+    }
+    String tableName = select.getTable();
+    List<long[]> ranges;
+    String key;
+    try {
+      key = select.isOrdered() ? null : DBTableDump.primaryKey(conn, tableName);
+      ranges = key == null ? null : split(conn, tableName, key);
+    } catch (SQLException e) {
+      logger.error(e.getMessage());
+      return -1;
+    }
+    if (ranges == null) {
+      logger.warn("Table " + tableName + " cannot be cut into key ranges. Streaming it in one query!");
+      return DBTableDump.dumpTable(conn, select, fetchSize, 0, Long.MIN_VALUE,
+          maxStringColWidth, sampleRows, overflow, output);
+    }
+    List<Connection> readers = borrowReaders(Math.min(threads, ranges.size()));
+    if (readers.isEmpty()) {
+      logger.warn("No free connection to scan " + tableName + " with. Streaming it in one query!");
+      return DBTableDump.dumpTable(conn, select, fetchSize, 0, Long.MIN_VALUE,
+          maxStringColWidth, sampleRows, overflow, output);
+    }
+    BlockingQueue<Connection> free = new LinkedBlockingQueue<>(readers);
+    logger.info("Scanning " + tableName + " in " + ranges.size() + " partitions over " + readers.size() + " threads");
+
+    String quotedKey = example.db.select.SelectStatement.quote(key);
+    String sql = select.sql(quotedKey + " >= ? AND " + quotedKey + " <= ?", quotedKey);
+    TableSchema schema = SchemaCache.get(conn, select);
+    example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+
+    List<Partition> parts = new ArrayList<>(ranges.size());
+    ExecutorService executor = Executors.newFixedThreadPool(readers.size(), r -> {
+      Thread t = new Thread(r, "scan-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    DBResultsetStream printer = new DBResultsetStream(output, maxStringColWidth, sampleRows, overflow);
+    try {
+      for (long[] range : ranges) {
+        Partition p = new Partition(range[0], range[1], queueBatches);
+        parts.add(p);
+        executor.execute(() -> read(p, free, select, sql, fetchSize, schema, maxStringColWidth, metrics));
+      }
+
+      printer.useSchema(schema);
+      printer.useScratch(PrintScratch.forThread());
+      Rows rows = new Rows(parts);
+      List<String[]> sample = new ArrayList<>();
+      String[] row = null;
+      while (sample.size() < sampleRows && (row = rows.next()) != null) {
+        sample.add(row);
+      }
+      // Only the meta data is read
+      try (PreparedStatement stmt = conn.prepareStatement(select.sql() + " LIMIT 0")) {
+        select.bind(stmt);
+        try (ResultSet rs = stmt.executeQuery()) {
+          printer.begin(rs, sample);
+        }
+      }
+      while ((row = rows.next()) != null) {
+        printer.printRow(row);
+      }
+      printer.finish();
+
+    } catch (SQLException e) {
+      logger.error(e.getMessage());
+      return -1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Scan of table " + tableName + " interrupted.");
+      return -1;
+    } finally {
+      executor.shutdownNow();
+      closeReaders(executor, readers);
+    }
+    return printer.getRowCount();
+  }
+
+  /**
+   * Borrows up to <code>count</code> connections, no more than the pool
+   * has free, before any reader starts.
+   */
+  private List<Connection> borrowReaders(int count) {
+    example.db.pool.ConnectionPool pool = example.db.pool.ConnectionPool.of(connectionStr);
+    example.db.pool.PoolStats stats = pool.getStats();
+    int free = stats.getMaxSize() - stats.getActive();
+    if (free < count) {
+      logger.warn("The connection pool has " + free + " of " + stats.getMaxSize()
+          + " connections free, scanning with " + Math.max(free, 0) + " threads instead of " + count
+          + ". Consider a larger --poolSize.");
+      count = free;
+    }
+    List<Connection> readers = new ArrayList<>(Math.max(count, 0));
+    try {
+      for (int i = 0; i < count; i++) {
+        readers.add(pool.borrow());
+      }
+    } catch (SQLException e) {
+      logger.warn("Could only borrow " + readers.size() + " of " + count + " scan connections: " + e.getMessage());
+    }
+    return readers;
+  }
+
+  /**
+   * Gives the reader connections back once the readers have stopped.
+   */
+  private static void closeReaders(ExecutorService executor, List<Connection> readers) {
+    try {
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (Connection c : readers) {
+      try {
+        c.close();
+      } catch (SQLException e) {
+        // Given back or dropped by the pool either way
+      }
+    }
+  }
+
+  /**
+   * Cuts the key range of <code>tableName</code> into partitions of
+   * equal width.
+   *
+   * @return The first and last key of every partition, null when the
+   *         key is not an integer or the table is empty
+   */
+  private List<long[]> split(Connection conn, String tableName, String key) throws SQLException {
+    long min;
+    long max;
+    String quotedKey = example.db.select.SelectStatement.quote(key);
+    try (PreparedStatement stmt = conn.prepareStatement("SELECT MIN(" + quotedKey + "), MAX(" + quotedKey
+        + ") FROM " + example.db.select.SelectStatement.quoteName(tableName));
+         ResultSet rs = stmt.executeQuery()) {
+      switch (rs.getMetaData().getColumnType(1)) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+        case Types.BIGINT:
+          break;
+        default:
+          return null;
+      }
+      rs.next();
+      min = rs.getLong(1);
+      if (rs.wasNull()) {
+        return null;
+      }
+      max = rs.getLong(2);
+    }
+
+    // The last partition takes what is left over
+    long span = max - min;
+    int n = span < 0 || span >= partitions ? partitions : (int) span + 1;
+    List<long[]> ranges = new ArrayList<>(n);
+    if (span < 0) {
+      // Wider than a long, cut at the middle
+      ranges.add(new long[] {min, -1});
+      ranges.add(new long[] {0, max});
+      return ranges;
+    }
+    // Counted in keys, span + 1 of them, so no range is empty
+    long size = (span + 1) / n;
+    long first = min;
+    for (int i = 0; i < n; i++) {
+      long last = i == n - 1 ? max : first + size - 1;
+      ranges.add(new long[] {first, last});
+      first = last + 1;
+    }
+    return ranges;
+  }
+
+  /**
+   * Reads partition <code>p</code> into its queue with a connection
+   * taken from <code>free</code>, always ending it with {@link #END},
+   * also when reading fails, unless the printer gave up.
+   * There is one connection per thread, so there always is one free.
+   */
+  private void read(Partition p, BlockingQueue<Connection> free, example.db.select.SelectStatement select,
+                    String sql, int fetchSize, TableSchema schema, int maxStringColWidth,
+                    example.metrics.TableMetrics tableMetrics) {
+    example.metrics.TableMetrics outer = example.metrics.ExportMetrics.enter(tableMetrics);
+    Connection conn = free.poll();
+    boolean abandoned = false;
+    try {
+      if (conn == null) {
+        throw new SQLException("No reader connection left");
+      }
+      try (PreparedStatement stmt = conn.prepareStatement(sql,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+        stmt.setFetchSize(fetchSize);
+        int next = select.bind(stmt);
+        stmt.setLong(next, p.first);
+        stmt.setLong(next + 1, p.last);
+        long t = tableMetrics.start();
+        try (ResultSet rs = stmt.executeQuery()) {
+          tableMetrics.stop(example.metrics.EStage.QUERY, t);
+          List<Column> columns = schema.newColumns(rs);
+          int columnCount = columns.size();
+          List<String[]> batch = new ArrayList<>(BATCH_ROWS);
+          t = tableMetrics.start();
+          while (rs.next()) {
+            String[] row = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+              Column c = columns.get(i);
+              row[i] = c.getTypeCategory().toText(rs, c, maxStringColWidth, i);
+            }
+            batch.add(row);
+            t = tableMetrics.lap(example.metrics.EStage.FETCH, t);
+            if (batch.size() == BATCH_ROWS) {
+              p.queue.put(batch);
+              batch = new ArrayList<>(BATCH_ROWS);
+              t = tableMetrics.start();
+            }
+          }
+          if (!batch.isEmpty()) {
+            p.queue.put(batch);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      // The printer gave up, nobody takes from the queue any more
+      abandoned = true;
+    } catch (Throwable e) {
+      p.error = e;
+    } finally {
+      if (conn != null) {
+        free.add(conn);
+      }
+      example.metrics.ExportMetrics.enter(outer);
+      if (!abandoned) {
+        try {
+          p.queue.put(END);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private static class Partition {
+    final long first;
+    final long last;
+    final BlockingQueue<List<String[]>> queue;
+    volatile Throwable error;
+
+    Partition(long first, long last, int capacity) {
+      this.first = first;
+      this.last = last;
+      // One more for END
+      this.queue = new ArrayBlockingQueue<>(capacity + 1);
+    }
+  }
+
+  /**
+   * The rows of the partitions, one partition after the other.
+   */
+  private static class Rows {
+    private final List<Partition> parts;
+    private int part = 0;
+    private List<String[]> batch = END;
+    private int index = 0;
+
+    Rows(List<Partition> parts) {
+      this.parts = parts;
+    }
+
+    /**
+     * Returns the next row, null after the last one.
+     *
+     * @throws SQLException When a partition could not be read
+     */
+    String[] next() throws SQLException, InterruptedException {
+      while (index == batch.size()) {
+        if (part == parts.size()) {
+          return null;
+        }
+        Partition p = parts.get(part);
+        batch = p.queue.take();
+        index = 0;
+        if (batch == END) {
+          if (p.error != null) {
+            throw new SQLException("Partition " + p.first + " to " + p.last + " failed: "
+                + (p.error instanceof SQLException ? p.error.getMessage() : p.error.toString()), p.error);
+          }
+          part++;
+        }
+      }
+      return batch.get(index++);
+    }
+  }
+}
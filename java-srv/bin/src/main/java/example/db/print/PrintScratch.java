@@ -0,0 +1,59 @@
+package example.db.print;
+
+/**
+ * Buffers a print needs while it runs but not after: the character
+ * buffer rows are laid out in and the builders for the header. Reusing
+ * one across prints saves growing them again for every table. A scratch
+ * must only be used by one print at a time, so each thread keeps its
+ * own, see {@link #forThread()}.
+ */
+public class PrintScratch {
+
+  private static final ThreadLocal<PrintScratch> perThread = ThreadLocal.withInitial(PrintScratch::new);
+
+  private char[] line = new char[256];
+  private final StringBuilder header = new StringBuilder();
+  private final StringBuilder separator = new StringBuilder();
+
+  /**
+   * Returns the scratch of the calling thread.
+   */
+  public static PrintScratch forThread() {
+    return perThread.get();
+  }
+
+  /**
+   * Returns the line buffer, at least <code>capacity</code> long.
+   */
+  char[] line(int capacity) {
+    if (line.length < capacity) {
+      line = new char[Math.max(capacity, line.length * 2)];
+    }
+    return line;
+  }
+
+  /**
+   * Keeps a line buffer that had to grow while rows were laid out.
+   */
+  void keepLine(char[] grown) {
+    if (grown.length > line.length) {
+      line = grown;
+    }
+  }
+
+  /**
+   * Returns the header builder, emptied.
+   */
+  StringBuilder header() {
+    header.setLength(0);
+    return header;
+  }
+
+  /**
+   * Returns the row separator builder, emptied.
+   */
+  StringBuilder separator() {
+    separator.setLength(0);
+    return separator;
+  }
+}
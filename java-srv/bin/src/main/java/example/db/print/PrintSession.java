@@ -0,0 +1,229 @@
+package example.db.print;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Prints tables and result sets with fixed settings. A session keeps
+ * no state between prints: every print gets its own columns and
+ * renderer and lays rows out in a {@link PrintScratch}. Without a
+ * scratch of its own a session uses the one of the calling thread and
+ * can be shared by any number of threads; with one it must only be
+ * used by one thread at a time. {@link DBTablePrinter} is a front for
+ * this class.
+ */
+public class PrintSession {
+
+  private static final Logger logger = Logger.getLogger(PrintSession.class);
+
+  /**
+   * Default maximum width for text columns
+   * (like a <code>VARCHAR</code>) column.
+   */
+  public static final int DEFAULT_MAX_TEXT_COL_WIDTH = 150;
+
+  private final int maxStringColWidth;
+  private final int sampleRows;
+  private final EOverflow overflow;
+  private final PrintScratch scratch;
+
+  public PrintSession() {
+    this(DEFAULT_MAX_TEXT_COL_WIDTH);
+  }
+
+  /**
+   * @param maxStringColWidth Max. width of text columns
+   */
+  public PrintSession(int maxStringColWidth) {
+    this(maxStringColWidth, DBResultsetStream.DEFAULT_SAMPLE_ROWS, EOverflow.TRUNCATE, null);
+  }
+
+  /**
+   * @param maxStringColWidth Max. width of text columns
+   * @param sampleRows Rows a streamed print reads to fix the column
+   *                   widths, 0 to use the display size
+   * @param overflow What a streamed print does with values wider than their column
+   * @param scratch Buffers to reuse, null for those of the calling thread
+   */
+  public PrintSession(int maxStringColWidth, int sampleRows, EOverflow overflow, PrintScratch scratch) {
+    this.maxStringColWidth = maxStringColWidth;
+    this.sampleRows = sampleRows;
+    this.overflow = overflow;
+    this.scratch = scratch;
+  }
+
+  /**
+   * Prints the rows of <code>rs</code> as one table, widths fitted to
+   * all of them.
+   *
+   * @param schema Columns of <code>rs</code>, null to read the meta data
+   * @return False when <code>rs</code> could not be read
+   */
+  public boolean printResultSet(ResultSet rs, TableSchema schema, example.db.print.output.IOutput output) {
+    if (output == null) {
+      logger.warn("Results will go to console");
+      output = new example.db.print.output.ToConsole();
+    }
+    return new DBResultsetPrint(output, scratch()).print(rs, schema, maxStringColWidth);
+  }
+
+  /**
+   * Prints the rows of <code>rs</code> as they are read, see
+   * {@link DBResultsetStream}.
+   *
+   * @param schema Columns of <code>rs</code>, null to read the meta data
+   * @return Number of rows printed, -1 when <code>rs</code> could not be read
+   */
+  public long streamResultSet(ResultSet rs, TableSchema schema, example.db.print.output.IOutput output) {
+    return DBResultsetStream.streamResultSet(rs, schema, maxStringColWidth, sampleRows, overflow, output,
+        scratch());
+  }
+
+  /**
+   * Prints up to <code>maxRows</code> rows of table
+   * <code>tableName</code> read with connection <code>conn</code>.
+   *
+   * @param maxRows Number of max. rows to query and print
+   */
+  public void printTable(Connection conn, String tableName, int maxRows, example.db.print.output.IOutput output) {
+    if (!isValid(conn, tableName)) {
+      return;
+    }
+    printTable(conn, example.db.select.SelectStatement.all(tableName), maxRows, output);
+  }
+
+  /**
+   * Prints up to <code>maxRows</code> of the rows <code>select</code>
+   * reads with connection <code>conn</code>.
+   *
+   * @param maxRows Number of max. rows to query and print
+   * @return False when the table could not be read
+   */
+  public boolean printTable(Connection conn, example.db.select.SelectStatement select, int maxRows,
+                            example.db.print.output.IOutput output) {
+    if (conn == null) {
+      logger.error("No connection to database (Connection is null)!");
+      return false;
+    }
+    if (maxRows < 1) {
+      logger.warn("Invalid max. rows number. Using default!");
+      maxRows = DBTablePrinter.DEFAULT_MAX_ROWS;
+    }
+
+    try {
+      if (conn.isClosed()) {
+        logger.error("Connection is closed!");
+        return false;
+      }
+
+      TableSchema schema = SchemaCache.get(conn, select);
+      example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+      long t = metrics.start();
+      try (PreparedStatement stmt = conn.prepareStatement(select.sql() + " LIMIT ?")) {
+        stmt.setInt(select.bind(stmt), maxRows);
+        try (ResultSet rs = stmt.executeQuery()) {
+          metrics.stop(example.metrics.EStage.QUERY, t);
+          return printResultSet(rs, schema, output);
+        }
+      }
+    } catch (SQLException e) {
+      logger.error(e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Streams table <code>tableName</code> read with connection
+   * <code>conn</code> without holding its rows in memory.
+   *
+   * @param maxRows Number of max. rows to query and print, less than 1 for all rows
+   * @return Number of rows printed, -1 when the table could not be read
+   */
+  public long streamTable(Connection conn, String tableName, int maxRows, example.db.print.output.IOutput output) {
+    if (!isValid(conn, tableName)) {
+      return -1;
+    }
+    return streamTable(conn, example.db.select.SelectStatement.all(tableName), maxRows, output);
+  }
+
+  /**
+   * Streams the rows <code>select</code> reads with connection
+   * <code>conn</code> without holding them in memory, fetched one by
+   * one from the server.
+   *
+   * @param maxRows Number of max. rows to query and print, less than 1 for all rows
+   * @return Number of rows printed, -1 when the table could not be read
+   */
+  public long streamTable(Connection conn, example.db.select.SelectStatement select, int maxRows,
+                          example.db.print.output.IOutput output) {
+    return streamTable(conn, select, maxRows, DBTableDump.STREAM_FETCH_SIZE, output);
+  }
+
+  /**
+   * Same as {@link #streamTable(Connection, example.db.select.SelectStatement, int, example.db.print.output.IOutput)}
+   * with the driver fetch size <code>fetchSize</code>, see
+   * {@link DBTableDump#STREAM_FETCH_SIZE}.
+   */
+  public long streamTable(Connection conn, example.db.select.SelectStatement select, int maxRows, int fetchSize,
+                          example.db.print.output.IOutput output) {
+    if (conn == null) {
+      logger.error("No connection to database (Connection is null)!");
+      return -1;
+    }
+
+    try {
+      if (conn.isClosed()) {
+        logger.error("Connection is closed!");
+        return -1;
+      }
+
+      TableSchema schema = SchemaCache.get(conn, select);
+      String sql = select.sql();
+      if (maxRows > 0) {
+        sql += " LIMIT ?";
+      }
+      example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+      long t = metrics.start();
+      try (PreparedStatement stmt = conn.prepareStatement(sql,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+        // Without it Connector/J reads the whole result into memory
+        stmt.setFetchSize(fetchSize);
+        int next = select.bind(stmt);
+        if (maxRows > 0) {
+          stmt.setInt(next, maxRows);
+        }
+        try (ResultSet rs = stmt.executeQuery()) {
+          metrics.stop(example.metrics.EStage.QUERY, t);
+          return streamResultSet(rs, schema, output);
+        }
+      }
+    } catch (SQLException e) {
+      logger.error(e.getMessage());
+    }
+    return -1;
+  }
+
+  private PrintScratch scratch() {
+    return scratch != null ? scratch : PrintScratch.forThread();
+  }
+
+  private static boolean isValid(Connection conn, String tableName) {
+    if (conn == null) {
+      logger.error("No connection to database (Connection is null)!");
+      return false;
+    }
+    if (tableName == null) {
+      logger.error("No table name (tableName is null)!");
+      return false;
+    }
+    if (tableName.length() == 0) {
+      logger.error("Empty table name!");
+      return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,226 @@
+package example.db.print;
+
+import java.text.DecimalFormatSymbols;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes table rows like <code>| 10001 | Georgi     |</code> into one
+ * reusable character buffer. The layout (width and justification of
+ * every column) is fixed when the renderer is made, so no format string
+ * is parsed and, for the common cases, no temporary <code>String</code>
+ * is built per cell. The text is the same as
+ * <code>String.format("| %-Ns ", value)</code> per cell would give.
+ */
+public class RowRenderer {
+
+  private final List<Column> columns;
+  private final int[] widths;
+  private final boolean[] left;
+  private char[] buf;
+  private final PrintScratch scratch;
+
+  private final char decimalSeparator;
+  private final boolean asciiDigits;
+
+  /**
+   * @param columns Columns with their final widths and justify flags
+   */
+  public RowRenderer(List<Column> columns) {
+    this(columns, null);
+  }
+
+  /**
+   * @param columns Columns with their final widths and justify flags
+   * @param scratch Lends the line buffer, null for a buffer of its own
+   */
+  public RowRenderer(List<Column> columns, PrintScratch scratch) {
+    this.columns = columns;
+    this.scratch = scratch;
+    this.widths = new int[columns.size()];
+    this.left = new boolean[columns.size()];
+
+    int lineWidth = 1;
+    for (int i = 0; i < widths.length; i++) {
+      Column c = columns.get(i);
+      widths[i] = c.getWidth();
+      left[i] = "-".equals(c.getJustifyFlag());
+      lineWidth += widths[i] + 3;
+    }
+    this.buf = scratch != null ? scratch.line(lineWidth + 64) : new char[lineWidth + 64];
+
+    // String.format uses the default format locale for "%.3f"
+    DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+    this.decimalSeparator = symbols.getDecimalSeparator();
+    this.asciiDigits = symbols.getZeroDigit() == '0';
+  }
+
+  /**
+   * Prints row <code>row</code> of the values held by the columns.
+   */
+  public void printRow(int row, example.db.print.output.IOutput output) {
+    write(render(row), output);
+  }
+
+  /**
+   * Prints a row made of already converted values, one per column.
+   */
+  public void printRow(String[] cells, example.db.print.output.IOutput output) {
+    write(render(cells), output);
+  }
+
+  /**
+   * Lays out row <code>row</code> in the buffer without printing it.
+   *
+   * @return Length of the line, to hand to {@link #write(int, example.db.print.output.IOutput)}
+   */
+  public int render(int row) {
+    int len = 0;
+    for (int i = 0; i < widths.length; i++) {
+      Column c = columns.get(i);
+      len = openCell(len, i);
+      int start = len;
+      if (c.isNull(row)) {
+        len = append("NULL", len);
+      } else {
+        switch (c.getStorage()) {
+          case LONG:
+            len = appendLong(c.getLong(row), len);
+            break;
+          case DOUBLE:
+            len = appendDouble(c.getDouble(row), len);
+            break;
+          default:
+            len = c.appendText(row, this, len);
+        }
+      }
+      len = closeCell(start, len, i);
+    }
+    return close(len);
+  }
+
+  /**
+   * Lays out a row made of already converted values without printing it.
+   */
+  public int render(String[] cells) {
+    int len = 0;
+    for (int i = 0; i < widths.length; i++) {
+      len = openCell(len, i);
+      int start = len;
+      len = append(cells[i], len);
+      len = closeCell(start, len, i);
+    }
+    return close(len);
+  }
+
+  /**
+   * Prints the line last laid out by <code>render</code>.
+   */
+  public void write(int len, example.db.print.output.IOutput output) {
+    output.println(buf, 0, len);
+  }
+
+  private int openCell(int len, int i) {
+    ensure(len + widths[i] + 32);
+    buf[len++] = '|';
+    buf[len++] = ' ';
+    return len;
+  }
+
+  private int closeCell(int start, int len, int i) {
+    int pad = widths[i] - (len - start);
+    if (pad > 0) {
+      ensure(len + pad + 1);
+      if (left[i]) {
+        for (int k = 0; k < pad; k++) {
+          buf[len + k] = ' ';
+        }
+      } else {
+        System.arraycopy(buf, start, buf, start + pad, len - start);
+        for (int k = 0; k < pad; k++) {
+          buf[start + k] = ' ';
+        }
+      }
+      len += pad;
+    }
+    ensure(len + 2);
+    buf[len++] = ' ';
+    return len;
+  }
+
+  private int close(int len) {
+    ensure(len + 1);
+    buf[len++] = '|';
+    return len;
+  }
+
+  /**
+   * Makes room for at least <code>capacity</code> characters and
+   * returns the buffer, which may have been replaced.
+   */
+  char[] ensure(int capacity) {
+    if (capacity > buf.length) {
+      char[] bigger = new char[Math.max(capacity, buf.length * 2)];
+      System.arraycopy(buf, 0, bigger, 0, buf.length);
+      buf = bigger;
+      if (scratch != null) {
+        scratch.keepLine(buf);
+      }
+    }
+    return buf;
+  }
+
+  private int append(String value, int len) {
+    ensure(len + value.length());
+    value.getChars(0, value.length(), buf, len);
+    return len + value.length();
+  }
+
+  private int appendLong(long value, int len) {
+    if (value == Long.MIN_VALUE) {
+      return append(Long.toString(value), len);
+    }
+    if (value < 0) {
+      buf[len++] = '-';
+      value = -value;
+    }
+    int digits = Column.longWidth(value);
+    int end = len + digits;
+    int pos = end;
+    do {
+      buf[--pos] = (char) ('0' + (value % 10));
+      value /= 10;
+    } while (value != 0);
+    return end;
+  }
+
+  /**
+   * Same text as <code>String.format("%.3f", value)</code>. Values too
+   * large or too close to a rounding tie to be sure of in binary go
+   * through <code>String.format</code>.
+   */
+  private int appendDouble(double value, int len) {
+    double abs = Math.abs(value);
+    if (!asciiDigits || !(abs < 1e9)) {
+      return append(String.format("%.3f", value), len);
+    }
+    double scaled = abs * 1000;
+    double floor = Math.floor(scaled);
+    double fraction = scaled - floor;
+    if (Math.abs(fraction - 0.5) < 1e-3) {
+      return append(String.format("%.3f", value), len);
+    }
+    long thousandths = (long) floor + (fraction > 0.5 ? 1 : 0);
+
+    if (Math.copySign(1.0, value) < 0) {
+      buf[len++] = '-';
+    }
+    len = appendLong(thousandths / 1000, len);
+    int decimals = (int) (thousandths % 1000);
+    buf[len++] = decimalSeparator;
+    buf[len++] = (char) ('0' + decimals / 100);
+    buf[len++] = (char) ('0' + (decimals / 10) % 10);
+    buf[len++] = (char) ('0' + decimals % 10);
+    return len;
+  }
+}
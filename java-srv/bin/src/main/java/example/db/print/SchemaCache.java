@@ -0,0 +1,115 @@
+package example.db.print;
+
+import org.apache.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link TableSchema} per table for the life of the process,
+ * so repeated prints of a table do not read and categorise its columns
+ * again. A cached schema is trusted for the check interval; after that
+ * the definition version of the table (a checksum over its columns in
+ * <code>information_schema.COLUMNS</code>) is read again and the schema
+ * is dropped if it changed.
+ */
+public class SchemaCache {
+
+  private static final Logger logger = Logger.getLogger(SchemaCache.class);
+
+  public static final long DEFAULT_CHECK_INTERVAL_MS = 60000;
+
+  private static final String VERSION_SQL =
+      "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT_WS(' ', ORDINAL_POSITION, COLUMN_NAME, COLUMN_TYPE, IS_NULLABLE))), 0)"
+      + " FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND TABLE_NAME = ?";
+
+  private static final Map<String, TableSchema> schemas = new ConcurrentHashMap<>();
+
+  private static volatile long checkIntervalMs = DEFAULT_CHECK_INTERVAL_MS;
+
+  /**
+   * Sets how long a cached schema is used before its version is
+   * checked again, 0 to check on every print.
+   */
+  public static void setCheckIntervalMs(long intervalMs) {
+    if (intervalMs < 0) {
+      logger.warn("Invalid schema check interval. Using default!");
+      intervalMs = DEFAULT_CHECK_INTERVAL_MS;
+    }
+    checkIntervalMs = intervalMs;
+  }
+
+  /**
+   * Returns the schema of <code>tableName</code>. Must be called before
+   * the query on <code>conn</code> is run, as it may need to read the
+   * table version first.
+   */
+  public static TableSchema get(Connection conn, String tableName) {
+    long now = System.currentTimeMillis();
+    String key;
+    try {
+      key = conn.getCatalog() + "." + tableName;
+    } catch (SQLException e) {
+      return new TableSchema(null, now);
+    }
+
+    TableSchema schema = schemas.get(key);
+    if (schema != null && now - schema.getCheckedAt() < checkIntervalMs) {
+      return schema;
+    }
+
+    String version;
+    try {
+      version = version(conn, tableName);
+    } catch (SQLException e) {
+      logger.warn("Could not read the version of table " + tableName + ", not caching its schema: " + e.getMessage());
+      return new TableSchema(null, now);
+    }
+
+    if (schema != null && version.equals(schema.getVersion())) {
+      schema.setCheckedAt(now);
+      return schema;
+    }
+    if (schema != null) {
+      logger.info("Definition of table " + tableName + " changed, reading its columns again.");
+    }
+    schema = new TableSchema(version, now);
+    schemas.put(key, schema);
+    return schema;
+  }
+
+  /**
+   * Returns the schema of the rows <code>select</code> reads: the cached
+   * one of its table when it reads every column, one of its own
+   * otherwise.
+   */
+  public static TableSchema get(Connection conn, example.db.select.SelectStatement select) {
+    return select.isProjected() ? TableSchema.uncached() : get(conn, select.getTable());
+  }
+
+  /**
+   * Forgets every cached schema.
+   */
+  public static void clear() {
+    schemas.clear();
+  }
+
+  /**
+   * Returns the definition version of <code>tableName</code>, which
+   * changes whenever one of its columns does.
+   */
+  public static String version(Connection conn, String tableName) throws SQLException {
+    int dot = tableName.indexOf('.');
+    try (PreparedStatement stmt = conn.prepareStatement(VERSION_SQL)) {
+      stmt.setString(1, dot < 0 ? null : tableName.substring(0, dot));
+      stmt.setString(2, dot < 0 ? tableName : tableName.substring(dot + 1));
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? rs.getLong(1) + ":" + rs.getLong(2) : "";
+      }
+    }
+  }
+}
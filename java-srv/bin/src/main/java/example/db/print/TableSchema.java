@@ -0,0 +1,122 @@
+package example.db.print;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The columns of a table as the printers need them: label, type,
+ * category, storage and display size, read once from the
+ * <code>ResultSetMetaData</code> of the first query and handed out as
+ * fresh {@link Column}s for every later print. See {@link SchemaCache}.
+ */
+public class TableSchema {
+
+  private final String version;
+  private volatile long checkedAt;
+
+  private volatile Columns columns = null;
+
+  /**
+   * Returns a schema that is not cached, read from the first
+   * <code>ResultSet</code> it is used with.
+   */
+  public static TableSchema uncached() {
+    return new TableSchema(null, 0);
+  }
+
+  TableSchema(String version, long checkedAt) {
+    this.version = version;
+    this.checkedAt = checkedAt;
+  }
+
+  String getVersion() {
+    return version;
+  }
+
+  long getCheckedAt() {
+    return checkedAt;
+  }
+
+  void setCheckedAt(long checkedAt) {
+    this.checkedAt = checkedAt;
+  }
+
+  /**
+   * Returns new columns for <code>rs</code>. The meta data of
+   * <code>rs</code> is only read the first time, or if its column count
+   * no longer matches.
+   */
+  public List<Column> newColumns(ResultSet rs) throws SQLException {
+    Columns c = resolve(rs);
+    List<Column> list = new ArrayList<>(c.labels.length);
+    for (int i = 0; i < c.labels.length; i++) {
+      list.add(new Column(c.labels[i], c.types[i], c.typeNames[i], c.categories[i], c.storages[i]));
+    }
+    return list;
+  }
+
+  /**
+   * Returns the distinct names of the tables the columns come from.
+   */
+  public List<String> getTableNames(ResultSet rs) throws SQLException {
+    return resolve(rs).tableNames;
+  }
+
+  /**
+   * Returns the display size of column <code>i</code>, counted from 0.
+   */
+  public int getDisplaySize(ResultSet rs, int i) throws SQLException {
+    return resolve(rs).displaySizes[i];
+  }
+
+  private Columns resolve(ResultSet rs) throws SQLException {
+    Columns c = columns;
+    ResultSetMetaData rsmd = rs.getMetaData();
+    if (c == null || rsmd.getColumnCount() != c.labels.length) {
+      c = new Columns(rsmd);
+      columns = c;
+    }
+    return c;
+  }
+
+  private static class Columns {
+    final String[] labels;
+    final int[] types;
+    final String[] typeNames;
+    final int[] displaySizes;
+    final ECatagory[] categories;
+    final EStorage[] storages;
+    final List<String> tableNames;
+
+    Columns(ResultSetMetaData rsmd) throws SQLException {
+      int count = rsmd.getColumnCount();
+      labels = new String[count];
+      types = new int[count];
+      typeNames = new String[count];
+      displaySizes = new int[count];
+      categories = new ECatagory[count];
+      storages = new EStorage[count];
+      List<String> names = new ArrayList<>();
+
+      // NOTE: columnIndex for rsmd.getXXX methods STARTS AT 1 NOT 0
+      for (int i = 0; i < count; i++) {
+        labels[i] = rsmd.getColumnLabel(i + 1);
+        types[i] = rsmd.getColumnType(i + 1);
+        typeNames[i] = rsmd.getColumnTypeName(i + 1);
+        displaySizes[i] = rsmd.getColumnDisplaySize(i + 1);
+        categories[i] = ECatagory.whichCategory(types[i]);
+        storages[i] = EStorage.forColumn(categories[i], types[i], typeNames[i]);
+
+        String name = rsmd.getTableName(i + 1);
+        if (!names.contains(name)) {
+          names.add(name);
+        }
+      }
+      tableNames = Collections.unmodifiableList(names);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package example.db.print;
+
+/**
+ * How far an incremental dump of a table got: the primary key of the
+ * last row dumped and, for tables with an update time column, that
+ * row's update time. Rows after the mark, in key order or in
+ * <code>(update time, key)</code> order, are the ones not dumped yet.
+ */
+public class Watermark {
+
+  /**
+   * Mark before every row of any table.
+   */
+  public static final Watermark START = new Watermark(Long.MIN_VALUE, null);
+
+  private final long key;
+  private final String updatedAt;
+
+  /**
+   * @param key Primary key of the last row dumped
+   * @param updatedAt Update time of that row as the server printed it,
+   *                  null when the rows are followed by key only
+   */
+  public Watermark(long key, String updatedAt) {
+    this.key = key;
+    this.updatedAt = updatedAt;
+  }
+
+  public long getKey() {
+    return key;
+  }
+
+  public String getUpdatedAt() {
+    return updatedAt;
+  }
+
+  @Override
+  public String toString() {
+    return updatedAt == null ? "key " + key : updatedAt + ", key " + key;
+  }
+}
@@ -0,0 +1,266 @@
+package example.db.print.format;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the blocks written by {@link BinaryRowWriter}.
+ *
+ * <pre>
+ *   try (BinaryRowReader reader = new BinaryRowReader(in)) {
+ *     while (reader.nextTable()) {
+ *       while (reader.next()) {
+ *         long id = reader.getLong(0);
+ *         ...
+ * </pre>
+ *
+ * Run it with a file name to print the file as tab separated text.
+ */
+public class BinaryRowReader implements AutoCloseable {
+
+  private final DataInputStream in;
+
+  private String table;
+  private String[] labels = new String[0];
+  private int[] types = new int[0];
+  private int[] storages = new int[0];
+  private boolean inTable = false;
+  private long rowCount;
+
+  private byte[] row = new byte[1024];
+  private int pos;
+  private long[] longs = new long[0];
+  private String[] strings = new String[0];
+  private boolean[] nulls = new boolean[0];
+
+  public BinaryRowReader(InputStream in) {
+    this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+  }
+
+  /**
+   * Moves to the next table block, skipping what is left of the
+   * current one.
+   *
+   * @return False at the end of the file
+   */
+  public boolean nextTable() throws IOException {
+    while (inTable) {
+      next();
+    }
+    byte[] magic = new byte[BinaryRowWriter.MAGIC.length];
+    int first = in.read();
+    if (first < 0) {
+      return false;
+    }
+    magic[0] = (byte) first;
+    in.readFully(magic, 1, magic.length - 1);
+    if (!Arrays.equals(magic, BinaryRowWriter.MAGIC)) {
+      throw new IOException("Not a binary row block");
+    }
+    int version = in.readUnsignedByte();
+    if (version != BinaryRowWriter.VERSION) {
+      throw new IOException("Unsupported binary row version " + version);
+    }
+    table = readString();
+    int count = in.readUnsignedShort();
+    labels = new String[count];
+    types = new int[count];
+    storages = new int[count];
+    for (int i = 0; i < count; i++) {
+      labels[i] = readString();
+      types[i] = in.readInt();
+      storages[i] = in.readUnsignedByte();
+    }
+    longs = new long[count];
+    strings = new String[count];
+    nulls = new boolean[count];
+    rowCount = -1;
+    inTable = true;
+    return true;
+  }
+
+  /**
+   * Reads the next row of the current table.
+   *
+   * @return False after the last row
+   */
+  public boolean next() throws IOException {
+    if (!inTable) {
+      return false;
+    }
+    int length = in.readInt();
+    if (length == BinaryRowWriter.END_OF_ROWS) {
+      rowCount = in.readLong();
+      inTable = false;
+      return false;
+    }
+    if (length > row.length) {
+      row = new byte[Math.max(length, row.length * 2)];
+    }
+    in.readFully(row, 0, length);
+
+    pos = 0;
+    int nullBytes = (labels.length + 7) / 8;
+    pos += nullBytes;
+    for (int i = 0; i < labels.length; i++) {
+      nulls[i] = (row[i >> 3] & (1 << (i & 7))) != 0;
+      strings[i] = null;
+      if (nulls[i]) {
+        continue;
+      }
+      if (storages[i] == BinaryRowWriter.STORAGE_TEXT) {
+        int len = varint();
+        strings[i] = new String(row, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+      } else {
+        longs[i] = getLongAt(pos);
+        pos += 8;
+      }
+    }
+    return true;
+  }
+
+  public String getTableName() {
+    return table;
+  }
+
+  public int getColumnCount() {
+    return labels.length;
+  }
+
+  public String getLabel(int i) {
+    return labels[i];
+  }
+
+  /**
+   * Returns the <code>java.sql.Types</code> type of column <code>i</code>.
+   */
+  public int getType(int i) {
+    return types[i];
+  }
+
+  public boolean isNull(int i) {
+    return nulls[i];
+  }
+
+  public long getLong(int i) {
+    switch (storages[i]) {
+      case BinaryRowWriter.STORAGE_LONG:
+        return longs[i];
+      case BinaryRowWriter.STORAGE_DOUBLE:
+        return (long) getDouble(i);
+      default:
+        return nulls[i] ? 0 : Long.parseLong(strings[i]);
+    }
+  }
+
+  public double getDouble(int i) {
+    switch (storages[i]) {
+      case BinaryRowWriter.STORAGE_LONG:
+        return longs[i];
+      case BinaryRowWriter.STORAGE_DOUBLE:
+        return Double.longBitsToDouble(longs[i]);
+      default:
+        return nulls[i] ? 0 : Double.parseDouble(strings[i]);
+    }
+  }
+
+  /**
+   * Returns the value of column <code>i</code> as text, null for
+   * <code>NULL</code>.
+   */
+  public String getString(int i) {
+    if (nulls[i]) {
+      return null;
+    }
+    switch (storages[i]) {
+      case BinaryRowWriter.STORAGE_LONG:
+        return Long.toString(longs[i]);
+      case BinaryRowWriter.STORAGE_DOUBLE:
+        return Double.toString(getDouble(i));
+      default:
+        return strings[i];
+    }
+  }
+
+  /**
+   * Returns the row count written at the end of the table, or -1 until
+   * the last row has been read.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private String readString() throws IOException {
+    int len = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = in.readUnsignedByte();
+      len |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    byte[] bytes = new byte[len];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int varint() throws IOException {
+    int v = 0;
+    for (int shift = 0; ; shift += 7) {
+      if (pos >= row.length) {
+        throw new EOFException("Truncated row");
+      }
+      int b = row[pos++] & 0xFF;
+      v |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return v;
+      }
+    }
+  }
+
+  private long getLongAt(int p) {
+    long v = 0;
+    for (int k = 0; k < 8; k++) {
+      v = (v << 8) | (row[p + k] & 0xFF);
+    }
+    return v;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: BinaryRowReader <file>");
+      return;
+    }
+    try (BinaryRowReader reader = new BinaryRowReader(new FileInputStream(args[0]))) {
+      while (reader.nextTable()) {
+        System.out.println("# " + reader.getTableName());
+        System.out.println(String.join("\t", reader.labels));
+        StringBuilder sb = new StringBuilder();
+        while (reader.next()) {
+          sb.setLength(0);
+          for (int i = 0; i < reader.getColumnCount(); i++) {
+            if (i > 0) {
+              sb.append('\t');
+            }
+            String value = reader.getString(i);
+            sb.append(value == null ? "NULL" : value);
+          }
+          System.out.println(sb);
+        }
+        System.out.println("# " + reader.getRowCount() + " rows");
+      }
+    }
+  }
+}
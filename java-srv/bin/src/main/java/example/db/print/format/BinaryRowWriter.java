@@ -0,0 +1,209 @@
+package example.db.print.format;
+
+import example.db.print.Column;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Compact, length prefixed binary rows, read back by
+ * {@link BinaryRowReader}. A file holds one block per table; all
+ * numbers are big endian.
+ *
+ * <pre>
+ * block   := header row* end
+ * header  := "EXRB" version:u8 table:str columns:u16 column*
+ * column  := label:str sqlType:i32 storage:u8   (0 long, 1 double, 2 text)
+ * row     := length:i32 nulls:u8[(columns + 7) / 8] value*
+ * value   := i64 | f64 | str                    (by storage, none if null)
+ * end     := -1:i32 rows:i64
+ * str     := length:varint utf8:u8[length]
+ * </pre>
+ *
+ * The length in front of a row counts the bytes after it, so a reader
+ * can skip rows without decoding them.
+ */
+public class BinaryRowWriter extends RowWriter {
+
+  static final byte[] MAGIC = {'E', 'X', 'R', 'B'};
+  static final int VERSION = 1;
+  static final int END_OF_ROWS = -1;
+
+  static final int STORAGE_LONG = 0;
+  static final int STORAGE_DOUBLE = 1;
+  static final int STORAGE_TEXT = 2;
+
+  private byte[] buf = new byte[1024];
+  private int len;
+  private int[] storages;
+
+  public BinaryRowWriter(example.db.print.output.IOutput output) {
+    super(output);
+  }
+
+  @Override
+  protected void begin() {
+    storages = new int[columns.size()];
+    len = 0;
+    for (byte b : MAGIC) {
+      putByte(b);
+    }
+    putByte(VERSION);
+    putString(table);
+    putShort(columns.size());
+    for (int i = 0; i < storages.length; i++) {
+      Column c = columns.get(i);
+      switch (c.getStorage()) {
+        case LONG:
+          storages[i] = STORAGE_LONG;
+          break;
+        case DOUBLE:
+          // Decimals keep their exact digits as text
+          storages[i] = c.getType() == Types.DECIMAL || c.getType() == Types.NUMERIC ? STORAGE_TEXT : STORAGE_DOUBLE;
+          break;
+        default:
+          storages[i] = STORAGE_TEXT;
+      }
+      putString(c.getLabel());
+      putInt(c.getType());
+      putByte(storages[i]);
+    }
+    output.write(buf, 0, len);
+  }
+
+  @Override
+  protected void row(ResultSet rs) throws SQLException {
+    int nullBytes = (storages.length + 7) / 8;
+    len = 4;
+    ensure(nullBytes);
+    for (int i = 0; i < nullBytes; i++) {
+      buf[len + i] = 0;
+    }
+    int nulls = len;
+    len += nullBytes;
+
+    for (int i = 0; i < storages.length; i++) {
+      switch (storages[i]) {
+        case STORAGE_LONG: {
+          long value = rs.getLong(i + 1);
+          if (rs.wasNull()) {
+            buf[nulls + (i >> 3)] |= 1 << (i & 7);
+          } else {
+            putLong(value);
+          }
+          break;
+        }
+        case STORAGE_DOUBLE: {
+          double value = rs.getDouble(i + 1);
+          if (rs.wasNull()) {
+            buf[nulls + (i >> 3)] |= 1 << (i & 7);
+          } else {
+            putLong(Double.doubleToRawLongBits(value));
+          }
+          break;
+        }
+        default: {
+          String value = rs.getString(i + 1);
+          if (value == null) {
+            buf[nulls + (i >> 3)] |= 1 << (i & 7);
+          } else {
+            putString(value);
+          }
+        }
+      }
+    }
+
+    int payload = len - 4;
+    buf[0] = (byte) (payload >>> 24);
+    buf[1] = (byte) (payload >>> 16);
+    buf[2] = (byte) (payload >>> 8);
+    buf[3] = (byte) payload;
+    output.write(buf, 0, len);
+  }
+
+  @Override
+  protected void end(long rows) {
+    len = 0;
+    putInt(END_OF_ROWS);
+    putLong(rows);
+    output.write(buf, 0, len);
+  }
+
+  private void ensure(int more) {
+    if (len + more > buf.length) {
+      byte[] bigger = new byte[Math.max(len + more, buf.length * 2)];
+      System.arraycopy(buf, 0, bigger, 0, len);
+      buf = bigger;
+    }
+  }
+
+  private void putByte(int b) {
+    ensure(1);
+    buf[len++] = (byte) b;
+  }
+
+  private void putShort(int v) {
+    ensure(2);
+    buf[len++] = (byte) (v >>> 8);
+    buf[len++] = (byte) v;
+  }
+
+  private void putInt(int v) {
+    ensure(4);
+    buf[len++] = (byte) (v >>> 24);
+    buf[len++] = (byte) (v >>> 16);
+    buf[len++] = (byte) (v >>> 8);
+    buf[len++] = (byte) v;
+  }
+
+  private void putLong(long v) {
+    putInt((int) (v >>> 32));
+    putInt((int) v);
+  }
+
+  private void putVarint(int v) {
+    ensure(5);
+    while ((v & ~0x7F) != 0) {
+      buf[len++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    buf[len++] = (byte) v;
+  }
+
+  /**
+   * UTF-8 without building a byte array per value. The byte length is
+   * only known afterwards, so room for the longest varint is left and
+   * the bytes are moved down if it was shorter.
+   */
+  private void putString(String s) {
+    ensure(5 + s.length() * 3);
+    int start = len + 5;
+    int pos = start;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        buf[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        buf[pos++] = (byte) (0xC0 | (c >> 6));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+        int cp = Character.toCodePoint(c, s.charAt(++i));
+        buf[pos++] = (byte) (0xF0 | (cp >> 18));
+        buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+        buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        buf[pos++] = (byte) '?';
+      } else {
+        buf[pos++] = (byte) (0xE0 | (c >> 12));
+        buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    int bytes = pos - start;
+    putVarint(bytes);
+    System.arraycopy(buf, start, buf, len, bytes);
+    len += bytes;
+  }
+}
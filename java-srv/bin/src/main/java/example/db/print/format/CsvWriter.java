@@ -0,0 +1,82 @@
+package example.db.print.format;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * RFC 4180 CSV: a header record with the column labels, records ended
+ * by CRLF, and fields quoted when they hold a comma, a quote or a line
+ * break. <code>NULL</code> is an empty field and an empty string a
+ * quoted empty field (<code>""</code>), so the two stay apart.
+ */
+public class CsvWriter extends RowWriter {
+
+  private final StringBuilder sb = new StringBuilder(256);
+  private char[] chars = new char[256];
+
+  public CsvWriter(example.db.print.output.IOutput output) {
+    super(output);
+  }
+
+  @Override
+  protected void begin() {
+    sb.setLength(0);
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      appendField(columns.get(i).getLabel());
+    }
+    endRecord();
+  }
+
+  @Override
+  protected void row(ResultSet rs) throws SQLException {
+    sb.setLength(0);
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      String value = rs.getString(i + 1);
+      if (value != null) {
+        appendField(value);
+      }
+    }
+    endRecord();
+  }
+
+  @Override
+  protected void end(long rows) {
+  }
+
+  private void appendField(String value) {
+    boolean quote = value.isEmpty();
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+    }
+    if (!quote) {
+      sb.append(value);
+      return;
+    }
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        sb.append('"');
+      }
+      sb.append(c);
+    }
+    sb.append('"');
+  }
+
+  private void endRecord() {
+    sb.append('\r').append('\n');
+    int len = sb.length();
+    if (len > chars.length) {
+      chars = new char[Math.max(len, chars.length * 2)];
+    }
+    sb.getChars(0, len, chars, 0);
+    output.print(chars, 0, len);
+  }
+}
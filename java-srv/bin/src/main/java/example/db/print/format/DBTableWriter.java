@@ -0,0 +1,82 @@
+package example.db.print.format;
+
+import example.db.print.SchemaCache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Writes a table in one of the {@link EFormat}s, each row as it comes
+ * off the connection.
+ */
+public class DBTableWriter {
+
+    private static final Logger logger = Logger.getLogger(DBTableWriter.class);
+
+    /**
+     * Writes rows from table <code>tableName</code>.
+     *
+     * @param conn Database connection object (java.sql.Connection)
+     * @param tableName Name of the database table
+     * @param maxRows Number of max. rows to write, less than 1 for all rows
+     * @param fetchSize Fetch size hint, <code>Integer.MIN_VALUE</code> to
+     *                  stream rows one at a time from MySQL
+     * @param format How to write the rows
+     * @return Number of rows written, -1 when the table could not be read
+     */
+    public static long writeTable(Connection conn, String tableName, int maxRows, int fetchSize,
+                                  EFormat format, example.db.print.output.IOutput output) {
+        if (conn == null) {
+            logger.error("No connection to database (Connection is null)!");
+            return -1;
+        }
+        if (tableName == null || tableName.length() == 0) {
+            logger.error("No table name!");
+            return -1;
+        }
+        return writeTable(conn, example.db.select.SelectStatement.all(tableName), maxRows, fetchSize, format, output);
+    }
+
+    /**
+     * Writes the rows <code>select</code> reads.
+     *
+     * @param select Columns, rows and order to write
+     * @return Number of rows written, -1 when the table could not be read
+     */
+    public static long writeTable(Connection conn, example.db.select.SelectStatement select, int maxRows,
+                                  int fetchSize, EFormat format, example.db.print.output.IOutput output) {
+        if (conn == null) {
+            logger.error("No connection to database (Connection is null)!");
+            return -1;
+        }
+
+        String sql = select.sql();
+        if (maxRows > 0) {
+            sql += " LIMIT ?";
+        }
+        try {
+            example.db.print.TableSchema schema = SchemaCache.get(conn, select);
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(fetchSize);
+                int next = select.bind(stmt);
+                if (maxRows > 0) {
+                    stmt.setInt(next, maxRows);
+                }
+                example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+                long t = metrics.start();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    metrics.stop(example.metrics.EStage.QUERY, t);
+                    return format.write(rs, schema, output);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error(e.getMessage());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,72 @@
+package example.db.print.format;
+
+import example.db.print.TableSchema;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * How a table is written, picked with <code>--format</code>.
+ */
+public enum EFormat {
+  /**
+   * The boxed text table, streamed with widths taken from a sample.
+   */
+  TABLE("log"){
+    @Override
+    public long write(ResultSet rs, TableSchema schema, example.db.print.output.IOutput output) {
+      return example.db.print.DBResultsetStream.streamResultSet(rs, schema, 150,
+          example.db.print.DBResultsetStream.DEFAULT_SAMPLE_ROWS, example.db.print.EOverflow.TRUNCATE, output);
+    }
+  },
+  /**
+   * RFC 4180 comma separated values, see {@link CsvWriter}.
+   */
+  CSV("csv"){
+    @Override
+    public long write(ResultSet rs, TableSchema schema, example.db.print.output.IOutput output) throws SQLException {
+      return new CsvWriter(output).write(rs, schema);
+    }
+  },
+  /**
+   * One JSON object per line, see {@link JsonLinesWriter}.
+   */
+  JSONL("jsonl"){
+    @Override
+    public long write(ResultSet rs, TableSchema schema, example.db.print.output.IOutput output) throws SQLException {
+      return new JsonLinesWriter(output).write(rs, schema);
+    }
+  },
+  /**
+   * Length prefixed binary rows, see {@link BinaryRowWriter}.
+   */
+  BINARY("bin"){
+    @Override
+    public long write(ResultSet rs, TableSchema schema, example.db.print.output.IOutput output) throws SQLException {
+      return new BinaryRowWriter(output).write(rs, schema);
+    }
+  };
+
+  private final String extension;
+
+  EFormat(String extension) {
+    this.extension = extension;
+  }
+
+  /**
+   * File name extension for this format, without the dot.
+   */
+  public String getExtension() {
+    return extension;
+  }
+
+  /**
+   * Writes every row of <code>rs</code> to <code>output</code>.
+   *
+   * @param schema Where to take the columns from, null to read them
+   *               from the meta data
+   * @return Number of rows written
+   */
+  public abstract long write(ResultSet rs, TableSchema schema, example.db.print.output.IOutput output)
+      throws SQLException;
+}
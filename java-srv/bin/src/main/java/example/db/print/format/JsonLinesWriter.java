@@ -0,0 +1,164 @@
+package example.db.print.format;
+
+import example.db.print.ECatagory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JSON Lines: one object per row, keyed by column label, one row per
+ * line. Integer, decimal and boolean columns are written as JSON
+ * numbers and booleans, <code>NULL</code> as <code>null</code> and
+ * everything else as a string.
+ */
+public class JsonLinesWriter extends RowWriter {
+
+  private final StringBuilder sb = new StringBuilder(256);
+  private char[] chars = new char[256];
+  private String[] keys;
+  private ECatagory[] categories;
+
+  public JsonLinesWriter(example.db.print.output.IOutput output) {
+    super(output);
+  }
+
+  @Override
+  protected void begin() {
+    keys = new String[columns.size()];
+    categories = new ECatagory[columns.size()];
+    for (int i = 0; i < keys.length; i++) {
+      sb.setLength(0);
+      sb.append(i == 0 ? "{" : ",");
+      appendString(columns.get(i).getLabel());
+      sb.append(':');
+      keys[i] = sb.toString();
+      categories[i] = columns.get(i).getTypeCategory();
+    }
+  }
+
+  @Override
+  protected void row(ResultSet rs) throws SQLException {
+    sb.setLength(0);
+    for (int i = 0; i < keys.length; i++) {
+      sb.append(keys[i]);
+      switch (categories[i]) {
+        case BOOLEAN: {
+          boolean value = rs.getBoolean(i + 1);
+          sb.append(rs.wasNull() ? "null" : value ? "true" : "false");
+          break;
+        }
+        case INTEGER:
+        case DOUBLE: {
+          String value = rs.getString(i + 1);
+          if (value == null) {
+            sb.append("null");
+          } else if (isNumber(value)) {
+            sb.append(value);
+          } else {
+            // NaN and Infinity have no JSON number
+            appendString(value);
+          }
+          break;
+        }
+        default: {
+          String value = rs.getString(i + 1);
+          if (value == null) {
+            sb.append("null");
+          } else {
+            appendString(value);
+          }
+        }
+      }
+    }
+    sb.append(keys.length == 0 ? "{}" : "}");
+
+    int len = sb.length();
+    if (len > chars.length) {
+      chars = new char[Math.max(len, chars.length * 2)];
+    }
+    sb.getChars(0, len, chars, 0);
+    output.println(chars, 0, len);
+  }
+
+  @Override
+  protected void end(long rows) {
+  }
+
+  /**
+   * True if <code>value</code> is a valid JSON number, which rules out
+   * <code>NaN</code>, <code>Infinity</code> and zero filled integers.
+   */
+  static boolean isNumber(String value) {
+    int n = value.length();
+    int i = 0;
+    if (i < n && value.charAt(i) == '-') {
+      i++;
+    }
+    if (i < n && value.charAt(i) == '0') {
+      i++;
+    } else {
+      int start = i;
+      i = digits(value, i);
+      if (i == start) {
+        return false;
+      }
+    }
+    if (i < n && value.charAt(i) == '.') {
+      int start = ++i;
+      i = digits(value, i);
+      if (i == start) {
+        return false;
+      }
+    }
+    if (i < n && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+      i++;
+      if (i < n && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+        i++;
+      }
+      int start = i;
+      i = digits(value, i);
+      if (i == start) {
+        return false;
+      }
+    }
+    return i == n;
+  }
+
+  private static int digits(String value, int i) {
+    while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+      i++;
+    }
+    return i;
+  }
+
+  private void appendString(String value) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+}
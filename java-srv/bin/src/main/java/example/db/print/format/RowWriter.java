@@ -0,0 +1,56 @@
+package example.db.print.format;
+
+import example.db.print.Column;
+import example.db.print.TableSchema;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes a <code>ResultSet</code> one row at a time as it is read, with
+ * nothing held back: the subclass writes a header once the columns are
+ * known, then each row, then a trailer.
+ */
+public abstract class RowWriter {
+
+  protected final example.db.print.output.IOutput output;
+  protected List<Column> columns;
+  protected String table;
+
+  protected RowWriter(example.db.print.output.IOutput output) {
+    this.output = output;
+  }
+
+  /**
+   * Writes every row of <code>rs</code>.
+   *
+   * @param schema Where to take the columns from, null to read them
+   *               from the meta data
+   * @return Number of rows written
+   */
+  public long write(ResultSet rs, TableSchema schema) throws SQLException {
+    TableSchema s = schema != null ? schema : TableSchema.uncached();
+    columns = s.newColumns(rs);
+    List<String> tables = s.getTableNames(rs);
+    table = tables.isEmpty() ? "" : String.join(",", tables);
+
+    example.metrics.TableMetrics metrics = example.metrics.ExportMetrics.current();
+    begin();
+    long rows = 0;
+    long t = metrics.start();
+    while (rs.next()) {
+      row(rs);
+      rows++;
+      t = metrics.lap(example.metrics.EStage.FETCH, t);
+    }
+    end(rows);
+    return rows;
+  }
+
+  protected abstract void begin();
+
+  protected abstract void row(ResultSet rs) throws SQLException;
+
+  protected abstract void end(long rows);
+}
@@ -0,0 +1,45 @@
+package example.db.print.output;
+
+/**
+ * What {@link ToAsyncLog} does with a line when its ring buffer is
+ * full.
+ */
+public enum EFullPolicy {
+  /**
+   * Wait for the logging thread to make room. Nothing is lost but the
+   * export runs at the speed of the appenders.
+   */
+  BLOCK(){
+    @Override
+    void offer(ToAsyncLog log, String line) {
+      while (!log.tryOffer(line)) {
+        log.waitForRoom();
+      }
+    }
+  },
+  /**
+   * Throw the line away and count it.
+   */
+  DROP(){
+    @Override
+    void offer(ToAsyncLog log, String line) {
+      if (!log.tryOffer(line)) {
+        log.drop();
+      }
+    }
+  },
+  /**
+   * Append the line to a spill file instead. Spilled lines are kept
+   * but end up out of order with the logged ones.
+   */
+  SPILL(){
+    @Override
+    void offer(ToAsyncLog log, String line) {
+      if (!log.tryOffer(line)) {
+        log.spill(line);
+      }
+    }
+  };
+
+  abstract void offer(ToAsyncLog log, String line);
+}
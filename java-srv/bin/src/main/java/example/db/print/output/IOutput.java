@@ -1,6 +1,72 @@
 package example.db.print.output;
 
-public interface IOutput {
+public interface IOutput extends AutoCloseable {
   void print(String str);
   void println(String str);
+
+  /**
+   * Prints <code>length</code> characters of <code>buf</code> starting
+   * at <code>offset</code>. Outputs that can write characters without
+   * building a <code>String</code> first override this.
+   */
+  default void print(char[] buf, int offset, int length) {
+    print(new String(buf, offset, length));
+  }
+
+  /**
+   * Same as {@link #print(char[], int, int)} followed by a line end.
+   */
+  default void println(char[] buf, int offset, int length) {
+    println(new String(buf, offset, length));
+  }
+
+  /**
+   * Writes <code>length</code> raw bytes of <code>buf</code> starting at
+   * <code>offset</code>, for binary formats. Only outputs backed by a
+   * byte stream support it.
+   */
+  default void write(byte[] buf, int offset, int length) {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot write binary data");
+  }
+
+  /**
+   * Pushes anything held in memory to the underlying media.
+   */
+  default void flush() {}
+
+  /**
+   * Flushes and then forces what was written to the storage device, so
+   * it survives a crash of the machine. Outputs not backed by a file
+   * only flush.
+   */
+  default void sync() {
+    flush();
+  }
+
+  /**
+   * Returns the length of the output once everything printed so far
+   * is written, -1 when the output has no length, like the console.
+   */
+  default long getPosition() {
+    return -1;
+  }
+
+  /**
+   * Cuts the output back to its first <code>length</code> bytes, to
+   * drop what a run that crashed wrote after its last commit.
+   *
+   * @return False when the output cannot be cut
+   */
+  default boolean truncate(long length) {
+    return false;
+  }
+
+  /**
+   * Flushes and releases the underlying media. Nothing may be printed
+   * after an output has been closed.
+   */
+  @Override
+  default void close() {
+    flush();
+  }
 }
@@ -0,0 +1,100 @@
+package example.db.print.output;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * Every slot carries a sequence number telling whose turn it is: a
+ * producer claims a slot by moving the shared tail forward, then
+ * publishes its element by bumping the slot sequence; the consumer
+ * takes the element and hands the slot back to the producers one lap
+ * later. Neither side ever waits on a lock.
+ */
+final class MpscRing<T> {
+
+  private final Object[] slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  // Only moved by the consumer, read by the others for size()
+  private volatile long head;
+
+  /**
+   * @param capacity Rounded up to a power of two
+   */
+  MpscRing(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    this.slots = new Object[size];
+    this.sequences = new AtomicLongArray(size);
+    this.mask = size - 1;
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Adds <code>e</code> unless the ring is full. Safe to call from any
+   * thread.
+   *
+   * @return False when the ring is full
+   */
+  boolean offer(T e) {
+    long t;
+    int i;
+    while (true) {
+      t = tail.get();
+      i = (int) (t & mask);
+      long diff = sequences.get(i) - t;
+      if (diff == 0) {
+        if (tail.compareAndSet(t, t + 1)) {
+          break;
+        }
+      } else if (diff < 0) {
+        // The consumer has not taken the element of the last lap yet
+        return false;
+      }
+    }
+    slots[i] = e;
+    sequences.set(i, t + 1);
+    return true;
+  }
+
+  /**
+   * Takes the oldest element. Must only be called from the consumer
+   * thread.
+   *
+   * @return Null when the ring is empty
+   */
+  @SuppressWarnings("unchecked")
+  T poll() {
+    long h = head;
+    int i = (int) (h & mask);
+    if (sequences.get(i) != h + 1) {
+      return null;
+    }
+    T e = (T) slots[i];
+    slots[i] = null;
+    sequences.set(i, h + slots.length);
+    head = h + 1;
+    return e;
+  }
+
+  /**
+   * Returns the number of elements ever added.
+   */
+  long offered() {
+    return tail.get();
+  }
+
+  /**
+   * Returns the number of elements ever taken.
+   */
+  long polled() {
+    return head;
+  }
+
+  int capacity() {
+    return slots.length;
+  }
+}
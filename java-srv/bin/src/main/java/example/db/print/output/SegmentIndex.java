@@ -0,0 +1,206 @@
+package example.db.print.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.apache.log4j.Logger;
+
+/**
+ * The segments of a {@link ToSegmentedFile} and the index next to
+ * them. Segment <code>n</code> of <code>base</code> is
+ * <code>base.n</code>, with <code>n</code> padded to six digits, and the
+ * index is <code>base.idx</code>. Each line of the index holds the
+ * segment, the byte offset and the table of one table block, tab
+ * separated, in the order the blocks were written.
+ */
+public class SegmentIndex {
+
+  private static final Logger logger = Logger.getLogger(SegmentIndex.class);
+
+  private static final String INDEX_SUFFIX = ".idx";
+
+  private final Path base;
+  private final Path index;
+  private final List<Entry> entries = new ArrayList<>();
+
+  private SegmentIndex(final String base) {
+    this.base = Paths.get(base);
+    this.index = Paths.get(base + INDEX_SUFFIX);
+  }
+
+  /**
+   * Reads the index of <code>base</code>, an empty one if there is
+   * none yet. Lines that cannot be read are left out.
+   */
+  public static SegmentIndex load(final String base) {
+    SegmentIndex idx = new SegmentIndex(base);
+    try {
+      for (String line : Files.readAllLines(idx.index, StandardCharsets.UTF_8)) {
+        String[] fields = line.split("\t", 3);
+        try {
+          idx.entries.add(new Entry(Integer.parseInt(fields[0]), Long.parseLong(fields[1]), fields[2]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+          logger.warn("Invalid line in segment index " + idx.index + ": " + line);
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // First run
+    } catch (IOException e) {
+      logger.error("An error occurred while reading segment index " + idx.index + ".");
+    }
+    return idx;
+  }
+
+  /**
+   * Returns the path of segment <code>segment</code>.
+   */
+  public Path segment(final int segment) {
+    return Paths.get(String.format("%s.%06d", base, segment));
+  }
+
+  /**
+   * Returns the numbers of the segments on disk, lowest first.
+   */
+  public TreeSet<Integer> segments() {
+    TreeSet<Integer> found = new TreeSet<>();
+    Path dir = base.toAbsolutePath().getParent();
+    String prefix = base.getFileName() + ".";
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(dir, prefix + "[0-9]*")) {
+      for (Path p : paths) {
+        String n = p.getFileName().toString().substring(prefix.length());
+        if (n.matches("[0-9]{6,}")) {
+          found.add(Integer.parseInt(n));
+        }
+      }
+    } catch (IOException e) {
+      logger.error("An error occurred while listing the segments of " + base + ".");
+    }
+    return found;
+  }
+
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * Returns the last block written of <code>table</code>, null if
+   * there is none.
+   */
+  public Entry latest(final String table) {
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      if (entries.get(i).table.equals(table)) {
+        return entries.get(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the block written after <code>entry</code>, null if it is
+   * the last one.
+   */
+  public Entry next(final Entry entry) {
+    int i = entries.indexOf(entry);
+    return i < 0 || i == entries.size() - 1 ? null : entries.get(i + 1);
+  }
+
+  /**
+   * Adds <code>added</code> to the end of the index, on disk too.
+   */
+  public void append(final List<Entry> added) {
+    if (added.isEmpty()) {
+      return;
+    }
+    try (BufferedWriter w = Files.newBufferedWriter(index, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      for (Entry e : added) {
+        w.write(e.toString());
+        w.newLine();
+      }
+    } catch (IOException e) {
+      logger.error("An error occurred while writing segment index " + index + ".");
+    }
+    entries.addAll(added);
+  }
+
+  /**
+   * Deletes every segment below <code>first</code> and rewrites the
+   * index without their blocks. The index is replaced in one move, so a
+   * reader sees either the old or the new one.
+   *
+   * @return Number of segments deleted
+   */
+  public int dropBefore(final int first) {
+    int dropped = 0;
+    for (int n : segments().headSet(first)) {
+      try {
+        Files.deleteIfExists(segment(n));
+        dropped++;
+      } catch (IOException e) {
+        logger.warn("Could not delete segment " + segment(n) + ".");
+      }
+    }
+    if (!entries.removeIf(e -> e.segment < first)) {
+      return dropped;
+    }
+    Path tmp = index.resolveSibling(index.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : entries) {
+          sb.append(e).append('\n');
+        }
+        channel.write(StandardCharsets.UTF_8.encode(sb.toString()));
+        channel.force(true);
+      }
+      Files.move(tmp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.error("An error occurred while writing segment index " + index + ".");
+    }
+    return dropped;
+  }
+
+  /**
+   * Where a table block starts.
+   */
+  public static class Entry {
+    private final int segment;
+    private final long offset;
+    private final String table;
+
+    public Entry(final int segment, final long offset, final String table) {
+      this.segment = segment;
+      this.offset = offset;
+      this.table = table;
+    }
+
+    public int getSegment() {
+      return segment;
+    }
+
+    public long getOffset() {
+      return offset;
+    }
+
+    public String getTable() {
+      return table;
+    }
+
+    @Override
+    public String toString() {
+      return segment + "\t" + offset + "\t" + table;
+    }
+  }
+}
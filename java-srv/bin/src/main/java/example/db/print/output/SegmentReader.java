@@ -0,0 +1,79 @@
+package example.db.print.output;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import org.apache.log4j.Logger;
+
+/**
+ * Reads the last block of one table from the segments of a
+ * {@link ToSegmentedFile}. The index gives where the block starts and
+ * where the next one does, and the bytes in between are copied from
+ * the segments without reading anything else.
+ *
+ * <p>Run on its own it prints the block to standard output:</p>
+ * <pre>
+ * java -cp example-0.0.1-SNAPSHOT.jar example.db.print.output.SegmentReader --file=/root/log/output.log --table=dog
+ * </pre>
+ */
+public class SegmentReader {
+
+  private static final Logger logger = Logger.getLogger(SegmentReader.class);
+
+  public static void main(String[] args) throws IOException {
+    example.Options options = example.Options.parse(args);
+    String table = options.get("table", "");
+    WritableByteChannel out = Channels.newChannel(System.out);
+    if (copyLatest(options.get("file", ToFile.DEFAULT_FILENAME), table, out) < 0) {
+      System.err.println("No block of table " + table + " in the index.");
+      System.exit(1);
+    }
+    System.out.flush();
+  }
+
+  /**
+   * Copies the last block written of <code>table</code> to
+   * <code>out</code>.
+   *
+   * @param base Name of the segments without their number
+   * @return Number of bytes copied, -1 when the index has no block of
+   *         the table or its segment is gone
+   */
+  public static long copyLatest(final String base, final String table, final WritableByteChannel out)
+      throws IOException {
+    SegmentIndex index = SegmentIndex.load(base);
+    SegmentIndex.Entry start = index.latest(table);
+    if (start == null) {
+      return -1;
+    }
+    SegmentIndex.Entry end = index.next(start);
+
+    long copied = 0;
+    long offset = start.getOffset();
+    for (int segment = start.getSegment(); end == null || segment <= end.getSegment(); segment++) {
+      try (FileChannel channel = FileChannel.open(index.segment(segment), StandardOpenOption.READ)) {
+        long limit = end != null && segment == end.getSegment() ? end.getOffset() : channel.size();
+        while (offset < limit) {
+          long n = channel.transferTo(offset, limit - offset, out);
+          if (n <= 0) {
+            break;
+          }
+          offset += n;
+          copied += n;
+        }
+      } catch (NoSuchFileException e) {
+        if (segment == start.getSegment()) {
+          logger.warn("Segment " + index.segment(segment) + " is gone.");
+          return -1;
+        }
+        // Past the last segment
+        break;
+      }
+      offset = 0;
+    }
+    return copied;
+  }
+}
@@ -0,0 +1,215 @@
+package example.db.print.output;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.log4j.Logger;
+
+/**
+ * Logs lines like {@link ToLog} but off the calling thread. Lines go
+ * into a bounded lock-free ring and a dedicated thread hands them to
+ * log4j, so a slow appender no longer holds up the export. An
+ * {@link EFullPolicy} decides what happens when the ring is full.
+ * {@link #flush()} waits until every line offered so far has been
+ * logged and {@link #close()} drains the ring and stops the thread.
+ *
+ * <p>Lines may be printed from several threads, but a line built with
+ * <code>print</code> calls must be finished by the thread that started
+ * it.</p>
+ */
+public class ToAsyncLog implements IOutput {
+
+  public static final int DEFAULT_CAPACITY = 8192;
+  public static final String DEFAULT_SPILL_FILE = "/root/log/spill.log";
+
+  private static final Logger logger = Logger.getLogger(ToAsyncLog.class);
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  private final MpscRing<String> ring;
+  private final EFullPolicy policy;
+  private final String spillFile;
+  private final Thread consumer;
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong spilled = new AtomicLong();
+  private StringBuilder sb = new StringBuilder();
+  private ToFile spill;
+  // Only moved by the logging thread
+  private volatile long logged;
+  private volatile boolean idle;
+  private volatile boolean closed;
+
+  public ToAsyncLog(){
+    this(DEFAULT_CAPACITY, EFullPolicy.BLOCK, DEFAULT_SPILL_FILE);
+  }
+
+  /**
+   * @param capacity Lines the ring holds, rounded up to a power of two
+   * @param policy What to do with a line when the ring is full
+   * @param spillFile Where {@link EFullPolicy#SPILL} puts the lines
+   */
+  public ToAsyncLog(final int capacity, final EFullPolicy policy, final String spillFile){
+    this.ring = new MpscRing<>(capacity);
+    this.policy = policy == null ? EFullPolicy.BLOCK : policy;
+    this.spillFile = spillFile == null ? DEFAULT_SPILL_FILE : spillFile;
+    this.consumer = new Thread(this::drain, "async-log");
+    this.consumer.setDaemon(true);
+    this.consumer.start();
+  }
+
+  @Override
+  public void print(String str){
+    sb.append(str);
+  }
+
+  @Override
+  public void println(String str){
+    if (sb.length() == 0) {
+      offer(str);
+      return;
+    }
+    sb.append(str);
+    offer(sb.toString());
+    sb = new StringBuilder();
+  }
+
+  /**
+   * Waits until every line offered so far has been logged.
+   */
+  @Override
+  public void flush(){
+    if (sb.length() > 0) {
+      offer(sb.toString());
+      sb = new StringBuilder();
+    }
+    long target = ring.offered();
+    while (logged < target && consumer.isAlive()) {
+      LockSupport.unpark(consumer);
+      LockSupport.parkNanos(WAIT_PARK_NANOS);
+    }
+  }
+
+  /**
+   * Logs what is left in the ring and stops the logging thread.
+   */
+  @Override
+  public void close(){
+    if (closed) {
+      return;
+    }
+    flush();
+    closed = true;
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      if (spill != null) {
+        spill.close();
+        spill = null;
+      }
+    }
+    if (dropped.get() > 0 || spilled.get() > 0) {
+      logger.warn("Async log full: " + dropped.get() + " lines dropped, " + spilled.get()
+          + " lines spilled to " + spillFile);
+    }
+  }
+
+  /**
+   * Returns the number of lines thrown away by {@link EFullPolicy#DROP}.
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Returns the number of lines written to the spill file.
+   */
+  public long getSpilled() {
+    return spilled.get();
+  }
+
+  /**
+   * Returns the number of lines handed to log4j so far.
+   */
+  public long getLogged() {
+    return logged;
+  }
+
+  private void offer(String line) {
+    if (line == null) {
+      line = "null";
+    }
+    if (closed) {
+      // Nobody is draining the ring any more
+      logger.info(line);
+      return;
+    }
+    policy.offer(this, line);
+  }
+
+  boolean tryOffer(String line) {
+    if (!ring.offer(line)) {
+      return false;
+    }
+    if (idle) {
+      LockSupport.unpark(consumer);
+    }
+    return true;
+  }
+
+  void waitForRoom() {
+    LockSupport.unpark(consumer);
+    LockSupport.parkNanos(WAIT_PARK_NANOS);
+  }
+
+  void drop() {
+    dropped.incrementAndGet();
+  }
+
+  synchronized void spill(String line) {
+    if (spill == null) {
+      spill = new ToFile(spillFile, ToFile.DEFAULT_BUFFER_SIZE, ToFile.DEFAULT_FLUSH_INTERVAL_MS);
+    }
+    spill.println(line);
+    spilled.incrementAndGet();
+  }
+
+  private void drain() {
+    while (true) {
+      String line = ring.poll();
+      if (line != null) {
+        log(line);
+        continue;
+      }
+      if (closed) {
+        // Producers stopped before closed was set, so this is the end
+        while ((line = ring.poll()) != null) {
+          log(line);
+        }
+        return;
+      }
+      idle = true;
+      // A line offered before idle was set is seen here
+      line = ring.poll();
+      if (line != null) {
+        idle = false;
+        log(line);
+        continue;
+      }
+      LockSupport.parkNanos(IDLE_PARK_NANOS);
+      idle = false;
+    }
+  }
+
+  private void log(String line) {
+    try {
+      logger.info(line);
+    } catch (RuntimeException e) {
+      // Keep draining, a dead thread would block every producer
+    }
+    logged++;
+  }
+}
@@ -0,0 +1,186 @@
+package example.db.print.output;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.log4j.Logger;
+
+/**
+ * Holds everything printed to it so it can be written to another
+ * output later, line by line, in one piece.
+ *
+ * <p>Once more than <code>spillChars</code> characters are held the
+ * lines are moved to a temporary file and every later line goes there
+ * too, so a large table does not have to fit in memory while it waits
+ * for its turn. Each line is written with its length, so a line that
+ * holds a '\n' is replayed as the one line it was printed as.</p>
+ */
+public class ToBuffer implements IOutput {
+
+  /**
+   * Characters held in memory before spilling to a file.
+   */
+  public static final long DEFAULT_SPILL_CHARS = 8L * 1024 * 1024;
+
+  private static final Logger logger = Logger.getLogger(ToBuffer.class);
+
+  private StringBuilder sb = new StringBuilder();
+  private final List<String> lines = new ArrayList<>();
+  private final long spillChars;
+  private long held = 0;
+  private Path spillFile;
+  private Writer spill;
+
+  public ToBuffer(){
+    this(Long.MAX_VALUE);
+  }
+
+  /**
+   * @param spillChars Characters held in memory before the lines are
+   *                   moved to a temporary file
+   */
+  public ToBuffer(final long spillChars){
+    this.spillChars = spillChars;
+  }
+
+  @Override
+  public void print(String str){
+    sb.append(str);
+  }
+
+  @Override
+  public void println(String str){
+    sb.append(str);
+    String line = sb.toString();
+    sb = new StringBuilder();
+    if (spill != null) {
+      writeSpill(line);
+      return;
+    }
+    lines.add(line);
+    held += line.length();
+    if (held > spillChars) {
+      openSpill();
+    }
+  }
+
+  /**
+   * Replays the buffered lines to <code>output</code> and empties the
+   * buffer.
+   */
+  public void writeTo(IOutput output){
+    for (String line : lines)
+      output.println(line);
+    if (spill != null)
+      replaySpill(output);
+    if (sb.length() > 0)
+      output.print(sb.toString());
+    lines.clear();
+    held = 0;
+    sb = new StringBuilder();
+  }
+
+  /**
+   * Deletes the temporary file, if any, without replaying it.
+   */
+  @Override
+  public void close(){
+    if (spill != null) {
+      try {
+        spill.close();
+      } catch (IOException e) {
+        // Deleted below
+      }
+      deleteSpill();
+    }
+  }
+
+  private void openSpill(){
+    try {
+      spillFile = Files.createTempFile("export-", ".buf");
+      spill = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      logger.error("An error occurred while creating spill file, holding the output in memory.");
+      deleteSpill();
+      return;
+    }
+    for (String line : lines)
+      writeSpill(line);
+    lines.clear();
+    held = 0;
+  }
+
+  private void writeSpill(String line){
+    try {
+      spill.write(Integer.toString(line.length()));
+      spill.write(':');
+      spill.write(line);
+    } catch (IOException e) {
+      logger.error("An error occurred while writing spill file " + spillFile + ".");
+    }
+  }
+
+  /**
+   * Prints the lines of the spill file to <code>output</code> and
+   * deletes it.
+   */
+  private void replaySpill(IOutput output){
+    try {
+      spill.close();
+      try (Reader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+        char[] buf = new char[8192];
+        int length;
+        while ((length = readLength(reader)) >= 0) {
+          char[] line = length <= buf.length ? buf : new char[length];
+          readFully(reader, line, length);
+          output.println(line, 0, length);
+        }
+      }
+    } catch (IOException e) {
+      logger.error("An error occurred while reading spill file " + spillFile + ".");
+    }
+    deleteSpill();
+  }
+
+  /**
+   * Reads the length written before a line, -1 at the end of the file.
+   */
+  private static int readLength(Reader reader) throws IOException {
+    int c = reader.read();
+    if (c < 0)
+      return -1;
+    int length = 0;
+    for (; c != ':'; c = reader.read()) {
+      if (c < '0' || c > '9')
+        throw new EOFException();
+      length = length * 10 + (c - '0');
+    }
+    return length;
+  }
+
+  private static void readFully(Reader reader, char[] buf, int length) throws IOException {
+    for (int off = 0; off < length; ) {
+      int n = reader.read(buf, off, length - off);
+      if (n < 0)
+        throw new EOFException();
+      off += n;
+    }
+  }
+
+  private void deleteSpill(){
+    try {
+      if (spillFile != null)
+        Files.deleteIfExists(spillFile);
+    } catch (IOException e) {
+      logger.warn("Could not delete " + spillFile + ".");
+    }
+    spillFile = null;
+    spill = null;
+  }
+}
@@ -10,4 +10,14 @@ public class ToConsole implements IOutput {
   public void println(String str){
     System.out.println(str);
   }
+
+  @Override
+  public void write(byte[] buf, int offset, int length){
+    System.out.write(buf, offset, length);
+  }
+
+  @Override
+  public void flush(){
+    System.out.flush();
+  }
 }
@@ -1,22 +1,70 @@
 package example.db.print.output;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import org.apache.log4j.Logger;
 
+/**
+ * Appends to a file through a <code>FileChannel</code> that stays open
+ * for the whole run. Text is encoded straight into a reusable direct
+ * buffer which is written out when it is full, when a line is printed
+ * after the flush interval has passed, and on {@link #flush()} or
+ * {@link #close()}. Raw bytes, for binary formats, go through the same
+ * buffer.
+ */
 public class ToFile implements IOutput {
 
-  private StringBuilder sb = new StringBuilder();
-  private final String FILENAME = "/root/log/output.log";
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+
+  public static final String DEFAULT_FILENAME = "/root/log/output.log";
   private static final Logger logger = Logger.getLogger(ToFile.class);
 
+  private final String filename;
+  private final ByteBuffer buffer;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private final long flushIntervalNanos;
+  private final boolean append;
+  private long lastFlush = System.nanoTime();
+  private long drained = 0;
+  private FileChannel channel;
+
   public ToFile(){
+    this(DEFAULT_FILENAME, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MS);
+  }
+
+  public ToFile(final int bufferSize, final long flushIntervalMs){
+    this(DEFAULT_FILENAME, bufferSize, flushIntervalMs);
+  }
+
+  public ToFile(final String filename, final int bufferSize, final long flushIntervalMs){
+    this(filename, bufferSize, flushIntervalMs, true);
+  }
+
+  /**
+   * @param append False to empty the file first instead of appending
+   */
+  public ToFile(final String filename, final int bufferSize, final long flushIntervalMs, final boolean append){
+    this.filename = filename;
+    this.append = append;
+    this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 1024));
+    this.flushIntervalNanos = flushIntervalMs * 1000000L;
     create();
+    open();
   }
 
   private void create() {
     try {
-      File f = new File(FILENAME);
+      File f = new File(filename);
       if (f.createNewFile()) {
         logger.info("File created: " + f.getName());
       } else {
@@ -27,21 +75,166 @@ public class ToFile implements IOutput {
     }
   }
 
+  private void open() {
+    try {
+      channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+      drained = channel.size();
+    } catch (IOException e) {
+      logger.error("An error occurred while opening file.");
+    }
+  }
+
   @Override
   public void print(String str){
-    sb.append(str);
+    encode(str);
   }
 
   @Override
   public void println(String str){
+    encode(str);
+    endLine();
+  }
+
+  @Override
+  public void print(char[] buf, int offset, int length){
+    encode(CharBuffer.wrap(buf, offset, length));
+  }
+
+  @Override
+  public void println(char[] buf, int offset, int length){
+    encode(CharBuffer.wrap(buf, offset, length));
+    endLine();
+  }
+
+  @Override
+  public void write(byte[] buf, int offset, int length){
+    try {
+      while (length > 0) {
+        if (!buffer.hasRemaining()) {
+          drain();
+        }
+        int n = Math.min(length, buffer.remaining());
+        buffer.put(buf, offset, n);
+        offset += n;
+        length -= n;
+      }
+    } catch (IOException e) {
+      logger.error("An error occurred while writing file.");
+      buffer.clear();
+    }
+  }
+
+  @Override
+  public void flush(){
+    try {
+      drain();
+    } catch (IOException e) {
+      logger.error("An error occurred while writing file.");
+    }
+    lastFlush = System.nanoTime();
+  }
+
+  @Override
+  public void sync(){
+    flush();
+    if (channel != null) {
+      try {
+        channel.force(false);
+      } catch (IOException e) {
+        logger.error("An error occurred while syncing file.");
+      }
+    }
+  }
+
+  @Override
+  public void close(){
+    flush();
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.error("An error occurred while closing file.");
+      }
+      channel = null;
+    }
+  }
+
+  /**
+   * Returns the size of the file once everything printed so far is
+   * written, which is where the next character will go.
+   */
+  @Override
+  public long getPosition(){
+    return drained + buffer.position();
+  }
+
+  @Override
+  public boolean truncate(long length){
+    flush();
+    if (channel == null || length > drained) {
+      return false;
+    }
     try {
-      sb.append(str+"\n");
-      String text = sb.toString();
-      Path path = Paths.get(FILENAME);
-      Files.write(path, text.getBytes(), StandardOpenOption.APPEND);  //Append mode
-      sb = new StringBuilder();
+      channel.truncate(length);
+    } catch (IOException e) {
+      logger.error("An error occurred while truncating file.");
+      return false;
+    }
+    drained = length;
+    return true;
+  }
+
+  private void endLine(){
+    try {
+      if (!buffer.hasRemaining()) {
+        drain();
+      }
+      buffer.put((byte) '\n');
     } catch (IOException e) {
       logger.error("An error occurred while writing file.");
+      buffer.clear();
+    }
+    if (System.nanoTime() - lastFlush >= flushIntervalNanos) {
+      flush();
+    }
+  }
+
+  private void encode(CharSequence str){
+    encode(CharBuffer.wrap(str));
+  }
+
+  private void encode(CharBuffer in){
+    encoder.reset();
+    try {
+      CoderResult result;
+      do {
+        result = encoder.encode(in, buffer, true);
+        if (result.isOverflow()) {
+          drain();
+        }
+      } while (result.isOverflow());
+      do {
+        result = encoder.flush(buffer);
+        if (result.isOverflow()) {
+          drain();
+        }
+      } while (result.isOverflow());
+    } catch (IOException e) {
+      logger.error("An error occurred while writing file.");
+      buffer.clear();
+    }
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    if (channel == null) {
+      buffer.clear();
+      throw new IOException("File is not open");
+    }
+    while (buffer.hasRemaining()) {
+      drained += channel.write(buffer);
     }
+    buffer.clear();
   }
 }
@@ -0,0 +1,392 @@
+package example.db.print.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import org.apache.log4j.Logger;
+
+/**
+ * Writes a gzip file the way pigz does, compressing blocks of the
+ * output on several threads at once.
+ *
+ * <p>Text is encoded into a block of <code>blockSize</code> bytes. A full
+ * block is deflated on a pool of <code>threads</code> threads into a
+ * gzip member of its own and the members are written to the file in
+ * order, which gives a multi-member gzip file that <code>gzip -d</code>,
+ * <code>zcat</code> and <code>GZIPInputStream</code> read as one stream.
+ * Appending to an existing gzip file works the same way.</p>
+ *
+ * <p>At most two blocks per thread are in flight. When that many are
+ * queued, the printing thread waits for the oldest one. The time spent
+ * waiting shows whether compression keeps up with the rows. It is
+ * logged on {@link #close()} together with the compression ratio.</p>
+ *
+ * <p>Each {@link #flush()} ends the current block early. There is no
+ * flush interval, because every small block costs compression.</p>
+ *
+ * <p>A block that cannot be compressed or written leaves a hole in the
+ * rows, so no block after it is written either and
+ * {@link #getPosition()} returns -1 from then on.</p>
+ */
+public class ToGzipFile implements IOutput {
+
+  public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+  public static final int DEFAULT_LEVEL = 6;
+
+  private static final Logger logger = Logger.getLogger(ToGzipFile.class);
+
+  // Deflate, no flags, no time, unknown OS, as GZIPOutputStream writes it
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+  private static final int TRAILER_SIZE = 8;
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private final String filename;
+  private final int blockSize;
+  private final int level;
+  private final int maxInFlight;
+  private final ExecutorService executor;
+  private final ArrayDeque<Future<Block>> inFlight = new ArrayDeque<>();
+  private final ArrayDeque<Block> free = new ArrayDeque<>();
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private final long opened = System.nanoTime();
+  private Block block;
+  private ByteBuffer buffer;
+  private FileChannel channel;
+  private boolean failed = false;
+
+  private long bytesIn = 0;
+  private long bytesOut = 0;
+  private long blocks = 0;
+  private long waitNanos = 0;
+
+  /**
+   * @param threads Number of blocks deflated at once
+   * @param level Deflate level, 1 (fastest) to 9 (smallest)
+   * @param append False to empty the file first instead of appending
+   */
+  public ToGzipFile(final String filename, final int blockSize, final int threads, final int level,
+                    final boolean append){
+    this.filename = filename;
+    if (blockSize < 1024) {
+      logger.warn("Invalid gzip block size. Using default!");
+      this.blockSize = DEFAULT_BLOCK_SIZE;
+    } else {
+      this.blockSize = blockSize;
+    }
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+      logger.warn("Invalid gzip level. Using default!");
+      this.level = DEFAULT_LEVEL;
+    } else {
+      this.level = level;
+    }
+    int n = threads;
+    if (n < 1) {
+      logger.warn("Invalid gzip threads. Using default!");
+      n = Runtime.getRuntime().availableProcessors();
+    }
+    this.maxInFlight = 2 * n;
+    this.executor = Executors.newFixedThreadPool(n, r -> {
+      Thread t = new Thread(r, "gzip-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    this.block = new Block(this.blockSize);
+    this.buffer = ByteBuffer.wrap(block.in);
+    try {
+      channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      logger.error("An error occurred while opening file.");
+    }
+  }
+
+  @Override
+  public void print(String str){
+    encode(CharBuffer.wrap(str));
+  }
+
+  @Override
+  public void println(String str){
+    encode(CharBuffer.wrap(str));
+    endLine();
+  }
+
+  @Override
+  public void print(char[] buf, int offset, int length){
+    encode(CharBuffer.wrap(buf, offset, length));
+  }
+
+  @Override
+  public void println(char[] buf, int offset, int length){
+    encode(CharBuffer.wrap(buf, offset, length));
+    endLine();
+  }
+
+  @Override
+  public void write(byte[] buf, int offset, int length){
+    while (length > 0) {
+      if (!buffer.hasRemaining()) {
+        submit();
+      }
+      int n = Math.min(length, buffer.remaining());
+      buffer.put(buf, offset, n);
+      offset += n;
+      length -= n;
+    }
+  }
+
+  /**
+   * Compresses what is held and waits until every block is in the
+   * file.
+   */
+  @Override
+  public void flush(){
+    if (buffer.position() > 0) {
+      submit();
+    }
+    while (!inFlight.isEmpty()) {
+      writeOldest();
+    }
+  }
+
+  @Override
+  public void sync(){
+    flush();
+    if (channel != null) {
+      try {
+        channel.force(false);
+      } catch (IOException e) {
+        logger.error("An error occurred while syncing file.");
+      }
+    }
+  }
+
+  /**
+   * Returns the length of the file. Blocks still being compressed are
+   * only counted once {@link #flush()} has written them, which also
+   * ends a gzip member, so the length is where a member ends. Returns
+   * -1 once a block was lost, as the file no longer holds every row
+   * printed before its end.
+   */
+  @Override
+  public long getPosition(){
+    if (failed) {
+      return -1;
+    }
+    try {
+      return channel == null ? -1 : channel.size();
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public boolean truncate(long length){
+    flush();
+    try {
+      if (channel == null || length > channel.size()) {
+        return false;
+      }
+      channel.truncate(length);
+    } catch (IOException e) {
+      logger.error("An error occurred while truncating file.");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void close(){
+    flush();
+    executor.shutdown();
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.error("An error occurred while closing file.");
+      }
+      channel = null;
+    }
+    logger.info("Gzip " + filename + " " + getStats());
+    long openMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - opened);
+    long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    if (waitMs * 10 > openMs) {
+      logger.warn("Compression did not keep up, rows waited " + waitMs + " of " + openMs
+          + " ms. Consider more gzip threads or a lower level.");
+    }
+  }
+
+  public long getBytesIn() {
+    return bytesIn;
+  }
+
+  public long getBytesOut() {
+    return bytesOut;
+  }
+
+  /**
+   * Returns the time the printing thread spent waiting for a block to
+   * be compressed.
+   */
+  public long getWaitNanos() {
+    return waitNanos;
+  }
+
+  public String getStats() {
+    return String.format("in=%d out=%d ratio=%.2f blocks=%d waitMs=%d",
+        bytesIn, bytesOut, bytesOut == 0 ? 0.0 : (double) bytesIn / bytesOut, blocks,
+        TimeUnit.NANOSECONDS.toMillis(waitNanos));
+  }
+
+  private void endLine(){
+    if (!buffer.hasRemaining()) {
+      submit();
+    }
+    buffer.put((byte) '\n');
+  }
+
+  private void encode(CharBuffer in){
+    encoder.reset();
+    CoderResult result;
+    do {
+      result = encoder.encode(in, buffer, true);
+      if (result.isOverflow()) {
+        submit();
+      }
+    } while (result.isOverflow());
+    do {
+      result = encoder.flush(buffer);
+      if (result.isOverflow()) {
+        submit();
+      }
+    } while (result.isOverflow());
+  }
+
+  /**
+   * Hands the current block to the pool and starts the next one,
+   * writing out the blocks that are done and waiting for the oldest
+   * when too many are in flight.
+   */
+  private void submit(){
+    final Block b = block;
+    b.length = buffer.position();
+    final int lvl = level;
+    inFlight.add(executor.submit(() -> b.compress(lvl)));
+    while (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || inFlight.peek().isDone())) {
+      writeOldest();
+    }
+    block = free.isEmpty() ? new Block(blockSize) : free.pop();
+    buffer = ByteBuffer.wrap(block.in);
+  }
+
+  private void writeOldest(){
+    Future<Block> f = inFlight.poll();
+    Block b;
+    try {
+      if (f.isDone()) {
+        b = f.get();
+      } else {
+        long t = System.nanoTime();
+        b = f.get();
+        waitNanos += System.nanoTime() - t;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      fail("Interrupted while compressing file.");
+      return;
+    } catch (ExecutionException e) {
+      fail("An error occurred while compressing file: " + e.getCause());
+      return;
+    }
+    if (!failed) {
+      try {
+        if (channel == null) {
+          throw new IOException("File is not open");
+        }
+        ByteBuffer out = ByteBuffer.wrap(b.out, 0, b.outLength);
+        while (out.hasRemaining()) {
+          channel.write(out);
+        }
+        bytesOut += b.outLength;
+      } catch (IOException e) {
+        fail("An error occurred while writing file.");
+      }
+    }
+    bytesIn += b.length;
+    blocks++;
+    free.push(b);
+  }
+
+  private void fail(String message){
+    logger.error(message + (failed ? "" : " Not writing the rest of the file!"));
+    failed = true;
+  }
+
+  /**
+   * A block of the output and, once compressed, its gzip member. Kept
+   * for reuse once written.
+   */
+  private static class Block {
+    final byte[] in;
+    int length;
+    byte[] out;
+    int outLength;
+
+    Block(int size) {
+      in = new byte[size];
+      // Stored blocks, the worst case, take 5 bytes per 16K
+      out = new byte[HEADER.length + size + ((size >>> 14) + 1) * 5 + 64 + TRAILER_SIZE];
+    }
+
+    Block compress(int level) {
+      System.arraycopy(HEADER, 0, out, 0, HEADER.length);
+      int pos = HEADER.length;
+      Deflater deflater = new Deflater(level, true);
+      try {
+        deflater.setInput(in, 0, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+          if (pos == out.length - TRAILER_SIZE) {
+            out = Arrays.copyOf(out, out.length * 2);
+          }
+          pos += deflater.deflate(out, pos, out.length - TRAILER_SIZE - pos);
+        }
+      } finally {
+        deflater.end();
+      }
+      CRC32 crc = new CRC32();
+      crc.update(in, 0, length);
+      pos = putInt(out, pos, (int) crc.getValue());
+      outLength = putInt(out, pos, length);
+      return this;
+    }
+
+    private static int putInt(byte[] b, int pos, int v) {
+      b[pos] = (byte) v;
+      b[pos + 1] = (byte) (v >>> 8);
+      b[pos + 2] = (byte) (v >>> 16);
+      b[pos + 3] = (byte) (v >>> 24);
+      return pos + 4;
+    }
+  }
+}
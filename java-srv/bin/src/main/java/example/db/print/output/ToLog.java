@@ -17,4 +17,12 @@ public class ToLog implements IOutput {
     logger.info(sb.toString());
     sb = new StringBuilder();
   }
+
+  @Override
+  public void flush(){
+    if (sb.length() > 0) {
+      logger.info(sb.toString());
+      sb = new StringBuilder();
+    }
+  }
 }
@@ -0,0 +1,295 @@
+package example.db.print.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import org.apache.log4j.Logger;
+
+/**
+ * Writes a file through a <code>MappedByteBuffer</code>, for large
+ * dumps. The file is grown one preallocated segment at a time and
+ * text is encoded straight into the mapping, so there is neither an
+ * intermediate buffer nor a system call per write. On {@link #close()}
+ * the file is truncated to the length actually written; until then it
+ * ends with the unused, zero filled part of the last segment.
+ *
+ * <p>A run that dies before {@link #close()} leaves that zero filled
+ * tail behind. Appending starts after the last byte that is not zero
+ * instead of at the end of the file, so the next run writes over the
+ * tail. The output is text, which never ends in a zero byte.</p>
+ */
+public class ToMappedFile implements IOutput {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private static final Logger logger = Logger.getLogger(ToMappedFile.class);
+
+  private final String filename;
+  private final int segmentSize;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private FileChannel channel;
+  private MappedByteBuffer segment;
+  // File offset of the start of the mapped segment
+  private long segmentStart;
+
+  public ToMappedFile(final String filename){
+    this(filename, DEFAULT_SEGMENT_SIZE, true);
+  }
+
+  /**
+   * @param segmentSize Bytes the file grows by when the current segment is full
+   * @param append False to empty the file first instead of appending
+   */
+  public ToMappedFile(final String filename, final int segmentSize, final boolean append){
+    this.filename = filename;
+    this.segmentSize = Math.max(segmentSize, 64 * 1024);
+    open(append);
+  }
+
+  private void open(boolean append) {
+    try {
+      channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      if (append) {
+        segmentStart = written();
+        if (segmentStart < channel.size()) {
+          logger.warn("File " + filename + " was not closed, appending after its last "
+              + segmentStart + " bytes.");
+        }
+      } else {
+        channel.truncate(0);
+      }
+      map();
+    } catch (IOException e) {
+      logger.error("An error occurred while opening file.");
+      channel = null;
+    }
+  }
+
+  /**
+   * Returns the length of the file without the zero filled tail of a
+   * segment that was never truncated.
+   */
+  private long written() throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+    long end = channel.size();
+    while (end > 0) {
+      long start = Math.max(end - buf.capacity(), 0);
+      buf.clear().limit((int) (end - start));
+      while (buf.hasRemaining() && channel.read(buf, start + buf.position()) >= 0) {
+        // Read the whole chunk
+      }
+      for (int i = buf.position() - 1; i >= 0; i--) {
+        if (buf.get(i) != 0) {
+          return start + i + 1;
+        }
+      }
+      end = start;
+    }
+    return 0;
+  }
+
+  /**
+   * Maps the next segment, which makes the file that much longer.
+   */
+  private void map() throws IOException {
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, segmentSize);
+  }
+
+  /**
+   * Moves on to the segment after the bytes written so far.
+   */
+  private void next() throws IOException {
+    if (channel == null) {
+      throw new IOException("File is not open");
+    }
+    segmentStart += segment.position();
+    map();
+  }
+
+  @Override
+  public void print(String str){
+    encode(CharBuffer.wrap(str));
+  }
+
+  @Override
+  public void println(String str){
+    encode(CharBuffer.wrap(str));
+    endLine();
+  }
+
+  @Override
+  public void print(char[] buf, int offset, int length){
+    encode(buf, offset, length);
+  }
+
+  @Override
+  public void println(char[] buf, int offset, int length){
+    encode(buf, offset, length);
+    endLine();
+  }
+
+  @Override
+  public void write(byte[] buf, int offset, int length){
+    if (segment == null) {
+      logger.error("An error occurred while writing file.");
+      return;
+    }
+    try {
+      while (length > 0) {
+        if (!segment.hasRemaining()) {
+          next();
+        }
+        int n = Math.min(length, segment.remaining());
+        segment.put(buf, offset, n);
+        offset += n;
+        length -= n;
+      }
+    } catch (IOException e) {
+      logger.error("An error occurred while writing file.");
+    }
+  }
+
+  /**
+   * Writes the mapped segment back to the disk. The bytes are in the
+   * page cache as soon as they are written, this makes them survive a
+   * crash of the machine too. The file gets its real length on
+   * {@link #close()}.
+   */
+  @Override
+  public void flush(){
+    if (segment != null) {
+      segment.force();
+    }
+  }
+
+  /**
+   * Forces the segment and the length of the file, which grows with
+   * every segment mapped.
+   */
+  @Override
+  public void sync(){
+    flush();
+    if (channel != null) {
+      try {
+        channel.force(false);
+      } catch (IOException e) {
+        logger.error("An error occurred while syncing file.");
+      }
+    }
+  }
+
+  @Override
+  public long getPosition(){
+    return segment == null ? -1 : segmentStart + segment.position();
+  }
+
+  @Override
+  public boolean truncate(long length){
+    if (segment == null || length > getPosition()) {
+      return false;
+    }
+    try {
+      segment = null;
+      channel.truncate(length);
+      segmentStart = length;
+      map();
+    } catch (IOException e) {
+      logger.error("An error occurred while truncating file.");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void close(){
+    if (channel == null) {
+      return;
+    }
+    try {
+      long length = segmentStart + segment.position();
+      segment = null;
+      channel.truncate(length);
+    } catch (IOException e) {
+      logger.error("An error occurred while truncating file.");
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.error("An error occurred while closing file.");
+    }
+    channel = null;
+  }
+
+  private void endLine(){
+    if (segment == null) {
+      logger.error("An error occurred while writing file.");
+      return;
+    }
+    try {
+      if (!segment.hasRemaining()) {
+        next();
+      }
+      segment.put((byte) '\n');
+    } catch (IOException e) {
+      logger.error("An error occurred while writing file.");
+    }
+  }
+
+  /**
+   * Copies the leading ASCII characters straight into the mapping and
+   * leaves the rest, if any, to the encoder.
+   */
+  private void encode(char[] buf, int offset, int length){
+    if (segment != null) {
+      int n = Math.min(length, segment.remaining());
+      int pos = segment.position();
+      int i = 0;
+      while (i < n && buf[offset + i] < 0x80) {
+        segment.put(pos + i, (byte) buf[offset + i]);
+        i++;
+      }
+      segment.position(pos + i);
+      offset += i;
+      length -= i;
+    }
+    if (length > 0) {
+      encode(CharBuffer.wrap(buf, offset, length));
+    }
+  }
+
+  private void encode(CharBuffer in){
+    if (segment == null) {
+      logger.error("An error occurred while writing file.");
+      return;
+    }
+    encoder.reset();
+    try {
+      CoderResult result;
+      do {
+        result = encoder.encode(in, segment, true);
+        if (result.isOverflow()) {
+          next();
+        }
+      } while (result.isOverflow());
+      do {
+        result = encoder.flush(segment);
+        if (result.isOverflow()) {
+          next();
+        }
+      } while (result.isOverflow());
+    } catch (IOException e) {
+      logger.error("An error occurred while writing file.");
+    }
+  }
+}
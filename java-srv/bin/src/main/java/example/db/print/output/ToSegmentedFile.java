@@ -0,0 +1,168 @@
+package example.db.print.output;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.log4j.Logger;
+
+/**
+ * Writes the output to a series of segment files instead of one file
+ * that grows for ever, and keeps a {@link SegmentIndex} of where each
+ * table block starts.
+ *
+ * <p>A new segment is started once the current one holds
+ * <code>maxBytes</code>, at the end of a line, and, with
+ * <code>perRun</code>, by every new output. Otherwise writing carries
+ * on at the end of the last segment, if it is not full. With
+ * <code>keep</code> only the newest segments are kept and the older
+ * ones are deleted whole.</p>
+ *
+ * <p>A block starts at its caption, the line a printer writes before
+ * the rows ("Printing 9 rows from table dog", "Streaming rows from
+ * table dog"). Its segment and offset are added to the index once the
+ * segment has been flushed, so the index never points past the data.
+ * {@link SegmentReader} uses the index to read one table without
+ * scanning the segments.</p>
+ */
+public class ToSegmentedFile implements IOutput {
+
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private static final Logger logger = Logger.getLogger(ToSegmentedFile.class);
+
+  private static final Pattern CAPTION = Pattern.compile("(?:Printing \\d+ rows?|Streaming rows) from tables? (.+)");
+
+  private final SegmentIndex index;
+  private final long maxBytes;
+  private final int keep;
+  private final int bufferSize;
+  private final long flushIntervalMs;
+  private final List<SegmentIndex.Entry> pending = new ArrayList<>();
+  private int segment;
+  private ToFile file;
+
+  /**
+   * @param base Name of the segments without their number
+   * @param maxBytes Size at which a segment is closed, less than 1 for no limit
+   * @param perRun True to start a new segment now
+   * @param keep Number of segments kept, less than 1 to keep all
+   */
+  public ToSegmentedFile(final String base, final long maxBytes, final boolean perRun, final int keep,
+                         final int bufferSize, final long flushIntervalMs){
+    this.index = SegmentIndex.load(base);
+    this.maxBytes = maxBytes;
+    this.keep = keep;
+    this.bufferSize = bufferSize;
+    this.flushIntervalMs = flushIntervalMs;
+    TreeSet<Integer> segments = index.segments();
+    if (segments.isEmpty()) {
+      segment = 1;
+    } else {
+      segment = perRun ? segments.last() + 1 : segments.last();
+    }
+    open();
+    // The last run may have left a full segment
+    rollIfFull();
+  }
+
+  @Override
+  public void print(String str){
+    file.print(str);
+    if (str.endsWith("\n")) {
+      rollIfFull();
+    }
+  }
+
+  @Override
+  public void println(String str){
+    caption(str);
+    file.println(str);
+    rollIfFull();
+  }
+
+  @Override
+  public void print(char[] buf, int offset, int length){
+    file.print(buf, offset, length);
+  }
+
+  @Override
+  public void println(char[] buf, int offset, int length){
+    // Rows start with | or +, only look at what may be a caption
+    if (length > 0 && (buf[offset] == 'P' || buf[offset] == 'S')) {
+      caption(new String(buf, offset, length));
+    }
+    file.println(buf, offset, length);
+    rollIfFull();
+  }
+
+  @Override
+  public void write(byte[] buf, int offset, int length){
+    file.write(buf, offset, length);
+  }
+
+  /**
+   * Flushes the segment and then adds the blocks started since the
+   * last flush to the index.
+   */
+  @Override
+  public void flush(){
+    file.flush();
+    index.append(pending);
+    pending.clear();
+  }
+
+  /**
+   * Same as {@link #flush()} with the segment forced to the disk
+   * before the index points into it.
+   */
+  @Override
+  public void sync(){
+    file.sync();
+    index.append(pending);
+    pending.clear();
+  }
+
+  @Override
+  public void close(){
+    flush();
+    file.close();
+  }
+
+  /**
+   * Returns the number of the segment being written.
+   */
+  public int getSegment() {
+    return segment;
+  }
+
+  private void caption(String line){
+    if (line.indexOf('\n') >= 0) {
+      return;
+    }
+    Matcher m = CAPTION.matcher(line);
+    if (m.matches()) {
+      pending.add(new SegmentIndex.Entry(segment, file.getPosition(), m.group(1)));
+    }
+  }
+
+  private void rollIfFull(){
+    if (maxBytes > 0 && file.getPosition() >= maxBytes) {
+      flush();
+      file.close();
+      segment++;
+      open();
+    }
+  }
+
+  private void open(){
+    file = new ToFile(index.segment(segment).toString(), bufferSize, flushIntervalMs, true);
+    if (keep > 0 && segment > keep) {
+      int dropped = index.dropBefore(segment - keep + 1);
+      if (dropped > 0) {
+        logger.info("Dropped " + dropped + " old segments of " + index.segment(segment));
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package example.db.print.output;
+
+/**
+ * Prints to an output and keeps a copy of everything in a second one.
+ * Closing the tee closes only the copy, the output it prints to stays
+ * open for whatever comes next.
+ */
+public class ToTee implements IOutput {
+
+  private final IOutput output;
+  private final IOutput copy;
+
+  public ToTee(final IOutput output, final IOutput copy){
+    this.output = output;
+    this.copy = copy;
+  }
+
+  @Override
+  public void print(String str){
+    output.print(str);
+    copy.print(str);
+  }
+
+  @Override
+  public void println(String str){
+    output.println(str);
+    copy.println(str);
+  }
+
+  @Override
+  public void print(char[] buf, int offset, int length){
+    output.print(buf, offset, length);
+    copy.print(buf, offset, length);
+  }
+
+  @Override
+  public void println(char[] buf, int offset, int length){
+    output.println(buf, offset, length);
+    copy.println(buf, offset, length);
+  }
+
+  @Override
+  public void write(byte[] buf, int offset, int length){
+    output.write(buf, offset, length);
+    copy.write(buf, offset, length);
+  }
+
+  @Override
+  public void flush(){
+    output.flush();
+    copy.flush();
+  }
+
+  @Override
+  public void sync(){
+    output.sync();
+    copy.flush();
+  }
+
+  @Override
+  public long getPosition(){
+    return output.getPosition();
+  }
+
+  @Override
+  public boolean truncate(long length){
+    return output.truncate(length);
+  }
+
+  @Override
+  public void close(){
+    output.flush();
+    copy.close();
+  }
+}
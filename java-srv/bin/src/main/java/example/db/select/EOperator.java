@@ -0,0 +1,97 @@
+package example.db.select;
+
+/**
+ * Comparison of a {@link Filter}, written between the column and the
+ * value in <code>--&lt;table&gt;.where</code>.
+ */
+public enum EOperator {
+  /**
+   * Equal to the value, or to any of several values separated by
+   * <code>|</code>.
+   */
+  EQ("=", "="){
+    @Override
+    void appendSql(StringBuilder sb, String column, int values) {
+      if (values == 1) {
+        super.appendSql(sb, column, values);
+      } else {
+        appendList(sb, column, values, " IN (");
+      }
+    }
+  },
+  /**
+   * Equal to neither the value nor any other separated by
+   * <code>|</code>.
+   */
+  NE("!=", "<>"){
+    @Override
+    void appendSql(StringBuilder sb, String column, int values) {
+      if (values == 1) {
+        super.appendSql(sb, column, values);
+      } else {
+        appendList(sb, column, values, " NOT IN (");
+      }
+    }
+  },
+  LT("<", "<"),
+  LE("<=", "<="),
+  GT(">", ">"),
+  GE(">=", ">="),
+  /**
+   * SQL <code>LIKE</code>, with <code>%</code> and <code>_</code> as
+   * wildcards.
+   */
+  LIKE("~", "LIKE");
+
+  private final String symbol;
+  private final String sql;
+
+  EOperator(String symbol, String sql) {
+    this.symbol = symbol;
+    this.sql = sql;
+  }
+
+  /**
+   * Returns how the operator is written on the command line.
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  /**
+   * Returns true when the operator takes a list of values.
+   */
+  public boolean takesList() {
+    return this == EQ || this == NE;
+  }
+
+  /**
+   * Appends the condition on <code>column</code>, already quoted, with
+   * a <code>?</code> for each of the <code>values</code>.
+   */
+  void appendSql(StringBuilder sb, String column, int values) {
+    sb.append(column).append(' ').append(sql).append(" ?");
+  }
+
+  private static void appendList(StringBuilder sb, String column, int values, String list) {
+    sb.append(column).append(list);
+    for (int i = 0; i < values; i++) {
+      sb.append(i == 0 ? "?" : ", ?");
+    }
+    sb.append(')');
+  }
+
+  /**
+   * Returns the operator that starts at <code>i</code> in
+   * <code>text</code>, the longest one if several do, or null.
+   */
+  static EOperator at(String text, int i) {
+    EOperator found = null;
+    for (EOperator op : values()) {
+      if (text.startsWith(op.symbol, i) && (found == null || op.symbol.length() > found.symbol.length())) {
+        found = op;
+      }
+    }
+    return found;
+  }
+}
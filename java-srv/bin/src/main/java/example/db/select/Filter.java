@@ -0,0 +1,58 @@
+package example.db.select;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One condition of <code>--&lt;table&gt;.where</code>, such as
+ * <code>breedId=2|3</code> or <code>colorId&gt;=2</code>, as written.
+ * The column and values are only checked when the selection is
+ * compiled, see {@link SelectStatement}.
+ */
+public class Filter {
+
+  private final String column;
+  private final EOperator operator;
+  private final List<String> values;
+
+  public Filter(String column, EOperator operator, List<String> values) {
+    this.column = column;
+    this.operator = operator;
+    this.values = Collections.unmodifiableList(values);
+  }
+
+  /**
+   * Reads a condition, <code>column</code>, operator, value.
+   *
+   * @throws IllegalArgumentException When there is no operator
+   */
+  public static Filter parse(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      EOperator op = EOperator.at(text, i);
+      if (op != null) {
+        String value = text.substring(i + op.getSymbol().length()).trim();
+        List<String> values = op.takesList() ? Arrays.asList(value.split("\\|", -1)) : Collections.singletonList(value);
+        return new Filter(text.substring(0, i).trim(), op, values);
+      }
+    }
+    throw new IllegalArgumentException("No operator in condition " + text);
+  }
+
+  public String getColumn() {
+    return column;
+  }
+
+  public EOperator getOperator() {
+    return operator;
+  }
+
+  public List<String> getValues() {
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return column + operator.getSymbol() + String.join("|", values);
+  }
+}
@@ -0,0 +1,255 @@
+package example.db.select;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * A {@link TableSelect} checked against the schema and turned into the
+ * SQL of a prepared statement. Table and column names are taken from
+ * the database meta data, in its spelling, and quoted; the values of
+ * the conditions are converted to the type of their column and bound
+ * as parameters, so MySQL can use an index on the column.
+ */
+public class SelectStatement {
+
+  private final String table;
+  private final String from;
+  private final List<String> columns;
+  private final String projection;
+  private final String where;
+  private final String orderBy;
+  private final List<Object> values;
+
+  private SelectStatement(String table, List<String> columns, String where, String orderBy, List<Object> values) {
+    this.table = table;
+    this.from = quoteName(table);
+    this.columns = columns;
+    if (columns.isEmpty()) {
+      this.projection = "*";
+    } else {
+      StringJoiner sj = new StringJoiner(", ");
+      for (String c : columns) {
+        sj.add(quote(c));
+      }
+      this.projection = sj.toString();
+    }
+    this.where = where;
+    this.orderBy = orderBy;
+    this.values = values;
+  }
+
+  /**
+   * Returns the statement for every column and row of
+   * <code>table</code>. The name is quoted, an unknown table is left
+   * for the server to report.
+   */
+  public static SelectStatement all(String table) {
+    return new SelectStatement(table, new ArrayList<>(), "", "", new ArrayList<>());
+  }
+
+  /**
+   * Checks <code>select</code> against the columns of its table and
+   * compiles it.
+   *
+   * @throws SQLException When the table, a column or a value is not
+   *                      valid, or the meta data cannot be read
+   */
+  public static SelectStatement compile(Connection conn, TableSelect select) throws SQLException {
+    if (select.isAll()) {
+      return all(select.getTable());
+    }
+    Map<String, SchemaColumn> schema = readColumns(conn, select.getTable());
+    if (schema.isEmpty()) {
+      throw new SQLException("Unknown table " + select.getTable());
+    }
+
+    List<String> columns = new ArrayList<>();
+    for (String name : select.getColumns()) {
+      columns.add(column(schema, select.getTable(), name).name);
+    }
+
+    StringBuilder where = new StringBuilder();
+    List<Object> values = new ArrayList<>();
+    for (Filter f : select.getFilters()) {
+      SchemaColumn c = column(schema, select.getTable(), f.getColumn());
+      where.append(where.length() == 0 ? "" : " AND ");
+      f.getOperator().appendSql(where, quote(c.name), f.getValues().size());
+      for (String v : f.getValues()) {
+        values.add(f.getOperator() == EOperator.LIKE ? v : c.convert(v));
+      }
+    }
+
+    StringJoiner order = new StringJoiner(", ");
+    for (String name : select.getOrderBy()) {
+      boolean descending = name.startsWith("-");
+      SchemaColumn c = column(schema, select.getTable(), descending ? name.substring(1) : name);
+      order.add(quote(c.name) + (descending ? " DESC" : ""));
+    }
+
+    return new SelectStatement(select.getTable(), columns, where.toString(), order.toString(), values);
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Returns true when every column and row is selected, in no order.
+   */
+  public boolean isAll() {
+    return columns.isEmpty() && where.isEmpty() && orderBy.isEmpty();
+  }
+
+  /**
+   * Returns true when only some columns are selected.
+   */
+  public boolean isProjected() {
+    return !columns.isEmpty();
+  }
+
+  /**
+   * Returns true when the rows are to be sorted.
+   */
+  public boolean isOrdered() {
+    return !orderBy.isEmpty();
+  }
+
+  /**
+   * Returns true when column <code>name</code> is among those selected.
+   */
+  public boolean selects(String name) {
+    if (columns.isEmpty()) {
+      return true;
+    }
+    for (String c : columns) {
+      if (c.equalsIgnoreCase(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the SQL of the statement.
+   */
+  public String sql() {
+    return sql(null, null);
+  }
+
+  /**
+   * Returns the SQL of the statement with <code>condition</code> added
+   * to its conditions and its rows in <code>orderBy</code> order, for
+   * reading it page by page. Either may be null.
+   */
+  public String sql(String condition, String orderBy) {
+    StringBuilder sb = new StringBuilder("SELECT ").append(projection).append(" FROM ").append(from);
+    if (!where.isEmpty() || condition != null) {
+      sb.append(" WHERE ").append(where);
+      if (condition != null) {
+        sb.append(where.isEmpty() ? "" : " AND ").append(condition);
+      }
+    }
+    String order = orderBy != null ? orderBy : this.orderBy;
+    if (!order.isEmpty()) {
+      sb.append(" ORDER BY ").append(order);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Binds the values of the conditions, starting with parameter 1.
+   *
+   * @return Index of the next parameter
+   */
+  public int bind(PreparedStatement stmt) throws SQLException {
+    int i = 1;
+    for (Object v : values) {
+      stmt.setObject(i++, v);
+    }
+    return i;
+  }
+
+  /**
+   * Quotes an identifier for MySQL.
+   */
+  public static String quote(String identifier) {
+    return "`" + identifier.replace("`", "``") + "`";
+  }
+
+  /**
+   * Quotes a table name that may be qualified with its database.
+   */
+  public static String quoteName(String name) {
+    int dot = name.indexOf('.');
+    return dot < 0 ? quote(name) : quote(name.substring(0, dot)) + "." + quote(name.substring(dot + 1));
+  }
+
+  private static SchemaColumn column(Map<String, SchemaColumn> schema, String table, String name)
+      throws SQLException {
+    SchemaColumn c = schema.get(name.toLowerCase(Locale.ROOT));
+    if (c == null) {
+      throw new SQLException("Unknown column " + name + " in table " + table);
+    }
+    return c;
+  }
+
+  private static Map<String, SchemaColumn> readColumns(Connection conn, String table) throws SQLException {
+    int dot = table.indexOf('.');
+    String catalog = dot < 0 ? conn.getCatalog() : table.substring(0, dot);
+    String name = dot < 0 ? table : table.substring(dot + 1);
+    Map<String, SchemaColumn> columns = new HashMap<>();
+    try (ResultSet rs = conn.getMetaData().getColumns(catalog, null, name, null)) {
+      while (rs.next()) {
+        // The name is a pattern, so _ also matches other tables
+        if (rs.getString("TABLE_NAME").equalsIgnoreCase(name)) {
+          String column = rs.getString("COLUMN_NAME");
+          columns.put(column.toLowerCase(Locale.ROOT), new SchemaColumn(column, rs.getInt("DATA_TYPE")));
+        }
+      }
+    }
+    return columns;
+  }
+
+  private static class SchemaColumn {
+    final String name;
+    final int type;
+
+    SchemaColumn(String name, int type) {
+      this.name = name;
+      this.type = type;
+    }
+
+    Object convert(String value) throws SQLException {
+      try {
+        switch (type) {
+          case Types.TINYINT:
+          case Types.SMALLINT:
+          case Types.INTEGER:
+          case Types.BIGINT:
+            return Long.valueOf(value);
+          case Types.DECIMAL:
+          case Types.NUMERIC:
+            return new BigDecimal(value);
+          case Types.REAL:
+          case Types.FLOAT:
+          case Types.DOUBLE:
+            return Double.valueOf(value);
+          default:
+            return value;
+        }
+      } catch (NumberFormatException e) {
+        throw new SQLException("Invalid value " + value + " for column " + name);
+      }
+    }
+  }
+}
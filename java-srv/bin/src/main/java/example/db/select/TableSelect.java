@@ -0,0 +1,100 @@
+package example.db.select;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What to export of one table: the columns, the rows and their order,
+ * taken from the options
+ *
+ * <pre>
+ * --&lt;table&gt;.columns=id,breedId
+ * --&lt;table&gt;.where=breedId=2|3,colorId&gt;=2
+ * --&lt;table&gt;.orderBy=colorId,-id
+ * </pre>
+ *
+ * <p>Conditions are joined with AND and written as column, operator
+ * (<code>= != &lt; &lt;= &gt; &gt;= ~</code>, the last for LIKE) and
+ * value; <code>|</code> separates the values of <code>=</code> and
+ * <code>!=</code>. A leading <code>-</code> sorts a column descending.
+ * Nothing is checked here, {@link SelectStatement#compile} checks the
+ * names against the schema.</p>
+ */
+public class TableSelect {
+
+  private final String table;
+  private final List<String> columns;
+  private final List<Filter> filters;
+  private final List<String> orderBy;
+
+  public TableSelect(String table, List<String> columns, List<Filter> filters, List<String> orderBy) {
+    this.table = table;
+    this.columns = Collections.unmodifiableList(columns);
+    this.filters = Collections.unmodifiableList(filters);
+    this.orderBy = Collections.unmodifiableList(orderBy);
+  }
+
+  /**
+   * Every column and row of <code>table</code>.
+   */
+  public static TableSelect all(String table) {
+    return new TableSelect(table, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+  }
+
+  /**
+   * Reads the selection of <code>table</code> from
+   * <code>options</code>.
+   *
+   * @throws IllegalArgumentException When a condition has no operator
+   */
+  public static TableSelect parse(String table, example.Options options) {
+    List<Filter> filters = new ArrayList<>();
+    for (String condition : split(options.get(table + ".where", ""))) {
+      filters.add(Filter.parse(condition));
+    }
+    return new TableSelect(table, split(options.get(table + ".columns", "")), filters,
+        split(options.get(table + ".orderBy", "")));
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Returns the columns to export, empty for all of them.
+   */
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  public List<Filter> getFilters() {
+    return filters;
+  }
+
+  /**
+   * Returns the columns to sort by, descending ones with a leading
+   * <code>-</code>.
+   */
+  public List<String> getOrderBy() {
+    return orderBy;
+  }
+
+  /**
+   * Returns true when every column and row is selected in no
+   * particular order.
+   */
+  public boolean isAll() {
+    return columns.isEmpty() && filters.isEmpty() && orderBy.isEmpty();
+  }
+
+  private static List<String> split(String list) {
+    List<String> items = new ArrayList<>();
+    for (String item : list.split(",")) {
+      if (!item.trim().isEmpty()) {
+        items.add(item.trim());
+      }
+    }
+    return items;
+  }
+}
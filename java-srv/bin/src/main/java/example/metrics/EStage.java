@@ -0,0 +1,27 @@
+package example.metrics;
+
+/**
+ * Stages an export spends its time in.
+ */
+public enum EStage {
+  /**
+   * Getting a connection: the probe in the chain and each pool borrow.
+   */
+  CONNECT,
+  /**
+   * Running the query until the first result is available.
+   */
+  QUERY,
+  /**
+   * Moving to the next row and converting its values, per row.
+   */
+  FETCH,
+  /**
+   * Laying a row out as text, per row.
+   */
+  FORMAT,
+  /**
+   * Handing text to the final output, per call.
+   */
+  WRITE
+}
@@ -0,0 +1,254 @@
+package example.metrics;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects a {@link TableMetrics} per exported table, plus one for the
+ * work done before any table (the connection probe). Off unless
+ * {@link #enable()} is called, in which case every lookup returns
+ * {@link TableMetrics#NOOP}. When on, the metrics are registered as
+ * MBeans under <code>example:type=ExportMetrics</code> and
+ * <code>example:type=TableMetrics,name=&lt;table&gt;</code> and
+ * {@link #writeSummary(String)} writes them out as JSON.
+ *
+ * <p>The table being exported is tracked per thread, see
+ * {@link #enter(TableMetrics)}, so code deep in the print path can find
+ * its metrics with {@link #current()}.</p>
+ */
+public class ExportMetrics implements ExportMetricsMBean {
+
+  private static final Logger logger = Logger.getLogger(ExportMetrics.class);
+
+  public static final String DEFAULT_SUMMARY_FILE = "/root/log/metrics.json";
+
+  private static final String DOMAIN = "example";
+
+  private static volatile ExportMetrics instance = null;
+
+  private static final ThreadLocal<TableMetrics> current = ThreadLocal.withInitial(() -> TableMetrics.NOOP);
+
+  private static final com.sun.management.ThreadMXBean threads = allocationBean();
+
+  private final Map<String, TableMetrics> tables = new ConcurrentSkipListMap<>();
+  private final Map<String, Boolean> registered = new ConcurrentHashMap<>();
+  private final TableMetrics run = new TableMetrics("run");
+  private final long startedAt = System.nanoTime();
+  private volatile long timeToFirstRowMs = -1;
+
+  private ExportMetrics() {
+  }
+
+  /**
+   * Turns metrics on for the rest of the run.
+   */
+  public static synchronized ExportMetrics enable() {
+    if (instance == null) {
+      instance = new ExportMetrics();
+      instance.register(DOMAIN + ":type=ExportMetrics", instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the collector, or null when metrics are off.
+   */
+  public static ExportMetrics get() {
+    return instance;
+  }
+
+  public static boolean isEnabled() {
+    return instance != null;
+  }
+
+  /**
+   * Returns the metrics of <code>table</code>.
+   */
+  public static TableMetrics table(String table) {
+    ExportMetrics metrics = instance;
+    if (metrics == null) {
+      return TableMetrics.NOOP;
+    }
+    TableMetrics tm = metrics.tables.get(table);
+    if (tm == null) {
+      tm = metrics.tables.computeIfAbsent(table, TableMetrics::new);
+      if (metrics.registered.putIfAbsent(table, Boolean.TRUE) == null) {
+        metrics.register(DOMAIN + ":type=TableMetrics,name=" + ObjectName.quote(table), tm);
+      }
+    }
+    return tm;
+  }
+
+  /**
+   * Returns the metrics of the work not tied to a table.
+   */
+  public static TableMetrics run() {
+    ExportMetrics metrics = instance;
+    return metrics == null ? TableMetrics.NOOP : metrics.run;
+  }
+
+  /**
+   * Returns the metrics of the table the calling thread is working on.
+   */
+  public static TableMetrics current() {
+    return current.get();
+  }
+
+  /**
+   * Makes <code>metrics</code> the current metrics of the calling
+   * thread and returns the previous ones, to restore afterwards.
+   */
+  public static TableMetrics enter(TableMetrics metrics) {
+    TableMetrics previous = current.get();
+    current.set(metrics);
+    return previous;
+  }
+
+  /**
+   * Returns the bytes allocated by the calling thread, or -1 when the
+   * JVM does not track it.
+   */
+  static long threadAllocatedBytes() {
+    return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Wraps <code>output</code> so writes are timed and counted, or
+   * returns it as is when metrics are off.
+   */
+  public static example.db.print.output.IOutput meter(example.db.print.output.IOutput output) {
+    return instance == null ? output : new MeteredOutput(output);
+  }
+
+  @Override
+  public String[] getTables() {
+    return tables.keySet().toArray(new String[0]);
+  }
+
+  @Override
+  public long getRows() {
+    long rows = 0;
+    for (TableMetrics tm : tables.values()) {
+      rows += tm.getRows();
+    }
+    return rows;
+  }
+
+  @Override
+  public long getBytesWritten() {
+    long bytes = 0;
+    for (TableMetrics tm : tables.values()) {
+      bytes += tm.getBytesWritten();
+    }
+    return bytes;
+  }
+
+  @Override
+  public long getAllocatedBytes() {
+    long bytes = 0;
+    for (TableMetrics tm : tables.values()) {
+      bytes += tm.getAllocatedBytes();
+    }
+    return bytes;
+  }
+
+  @Override
+  public long getTimeToFirstRowMs() {
+    return timeToFirstRowMs;
+  }
+
+  /**
+   * Notes how long after the start of the JVM the first table output
+   * was written, on the first call only.
+   */
+  synchronized void firstRow() {
+    if (timeToFirstRowMs < 0) {
+      timeToFirstRowMs = ManagementFactory.getRuntimeMXBean().getUptime();
+      logger.info("Time to first row " + timeToFirstRowMs + " ms");
+    }
+  }
+
+  @Override
+  public String getSummaryJson() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"elapsedMs\":").append(Math.round((System.nanoTime() - startedAt) / 1e3) / 1e3)
+      .append(",\"timeToFirstRowMs\":").append(timeToFirstRowMs)
+      .append(",\"rows\":").append(getRows())
+      .append(",\"bytesWritten\":").append(getBytesWritten())
+      .append(",\"allocatedBytes\":").append(getAllocatedBytes())
+      .append(",\"run\":");
+    run.appendJson(sb);
+    sb.append(",\"tables\":{");
+    boolean first = true;
+    for (Map.Entry<String, TableMetrics> e : tables.entrySet()) {
+      if (!first) {
+        sb.append(',');
+      }
+      first = false;
+      sb.append('"').append(escape(e.getKey())).append("\":");
+      e.getValue().appendJson(sb);
+    }
+    return sb.append("}}").toString();
+  }
+
+  /**
+   * Logs one line per table and writes the JSON summary to
+   * <code>filename</code>.
+   */
+  public void writeSummary(String filename) {
+    for (TableMetrics tm : tables.values()) {
+      logger.info(String.format("Table %s: %d rows in %.1f ms (%.0f rows/s), %d bytes written, %d bytes allocated",
+          tm.getTable(), tm.getRows(), tm.getElapsedMillis(), tm.getRowsPerSecond(),
+          tm.getBytesWritten(), tm.getAllocatedBytes()));
+    }
+    try {
+      Path path = Paths.get(filename);
+      Files.write(path, getSummaryJson().getBytes(StandardCharsets.UTF_8));
+      logger.info("Metrics written to " + path);
+    } catch (IOException e) {
+      logger.error("Could not write metrics to " + filename + ": " + e.getMessage());
+    }
+  }
+
+  private void register(String name, Object mbean) {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = new ObjectName(name);
+      if (!server.isRegistered(objectName)) {
+        server.registerMBean(mbean, objectName);
+      }
+    } catch (Exception e) {
+      logger.warn("Could not register MBean " + name + ": " + e.getMessage());
+    }
+  }
+
+  private static com.sun.management.ThreadMXBean allocationBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      if (sunBean.isThreadAllocatedMemorySupported()) {
+        if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+          sunBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return sunBean;
+      }
+    }
+    return null;
+  }
+
+  private static String escape(String s) {
+    return s.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
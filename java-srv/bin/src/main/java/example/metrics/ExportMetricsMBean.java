@@ -0,0 +1,26 @@
+package example.metrics;
+
+/**
+ * JMX view of the totals of a run.
+ */
+public interface ExportMetricsMBean {
+
+  String[] getTables();
+
+  long getRows();
+
+  long getBytesWritten();
+
+  long getAllocatedBytes();
+
+  /**
+   * Milliseconds from the start of the JVM to the first table output
+   * written, -1 until then.
+   */
+  long getTimeToFirstRowMs();
+
+  /**
+   * The same JSON as the summary file written at the end of the run.
+   */
+  String getSummaryJson();
+}
@@ -0,0 +1,81 @@
+package example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with one bucket per power of two nanoseconds.
+ * Recording is two atomic adds and a max, so it is cheap enough to do
+ * per row; percentiles are reported as the upper bound of their bucket.
+ */
+public class Histogram {
+
+  private static final int BUCKETS = 64;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+    total.addAndGet(nanos);
+    if (nanos > max.get()) {
+      max.accumulateAndGet(nanos, Math::max);
+    }
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long getTotalNanos() {
+    return total.get();
+  }
+
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * Returns an upper bound of the <code>p</code> quantile
+   * (0 &lt; p &lt;= 1) in nanoseconds.
+   */
+  public long quantileNanos(double p) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(p * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(i == 0 ? 0 : (1L << i) - 1, getMaxNanos());
+      }
+    }
+    return getMaxNanos();
+  }
+
+  void appendJson(StringBuilder sb) {
+    long count = getCount();
+    sb.append("{\"count\":").append(count)
+      .append(",\"totalMs\":").append(micros(total.get()) / 1000.0)
+      .append(",\"meanUs\":").append(count == 0 ? 0.0 : micros(total.get() / count))
+      .append(",\"p50Us\":").append(micros(quantileNanos(0.50)))
+      .append(",\"p90Us\":").append(micros(quantileNanos(0.90)))
+      .append(",\"p99Us\":").append(micros(quantileNanos(0.99)))
+      .append(",\"maxUs\":").append(micros(max.get()))
+      .append('}');
+  }
+
+  private static double micros(long nanos) {
+    return Math.round(nanos / 10.0) / 100.0;
+  }
+}
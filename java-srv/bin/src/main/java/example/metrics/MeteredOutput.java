@@ -0,0 +1,134 @@
+package example.metrics;
+
+/**
+ * Times every write to the wrapped output and counts the UTF-8 bytes
+ * written, against the table the writing thread is working on. The
+ * first write of the run also stops the time to first row.
+ */
+public class MeteredOutput implements example.db.print.output.IOutput {
+
+  private final example.db.print.output.IOutput output;
+  private boolean written = false;
+
+  public MeteredOutput(example.db.print.output.IOutput output) {
+    this.output = output;
+  }
+
+  @Override
+  public void print(String str) {
+    firstRow();
+    TableMetrics metrics = ExportMetrics.current();
+    long t = metrics.start();
+    output.print(str);
+    metrics.stop(EStage.WRITE, t);
+    metrics.addBytes(utf8Length(str));
+  }
+
+  @Override
+  public void println(String str) {
+    firstRow();
+    TableMetrics metrics = ExportMetrics.current();
+    long t = metrics.start();
+    output.println(str);
+    metrics.stop(EStage.WRITE, t);
+    metrics.addBytes(utf8Length(str) + 1);
+  }
+
+  @Override
+  public void print(char[] buf, int offset, int length) {
+    firstRow();
+    TableMetrics metrics = ExportMetrics.current();
+    long t = metrics.start();
+    output.print(buf, offset, length);
+    metrics.stop(EStage.WRITE, t);
+    metrics.addBytes(utf8Length(buf, offset, length));
+  }
+
+  @Override
+  public void println(char[] buf, int offset, int length) {
+    firstRow();
+    TableMetrics metrics = ExportMetrics.current();
+    long t = metrics.start();
+    output.println(buf, offset, length);
+    metrics.stop(EStage.WRITE, t);
+    metrics.addBytes(utf8Length(buf, offset, length) + 1);
+  }
+
+  @Override
+  public void write(byte[] buf, int offset, int length) {
+    firstRow();
+    TableMetrics metrics = ExportMetrics.current();
+    long t = metrics.start();
+    output.write(buf, offset, length);
+    metrics.stop(EStage.WRITE, t);
+    metrics.addBytes(length);
+  }
+
+  @Override
+  public void flush() {
+    TableMetrics metrics = ExportMetrics.current();
+    long t = metrics.start();
+    output.flush();
+    metrics.stop(EStage.WRITE, t);
+  }
+
+  @Override
+  public void sync() {
+    TableMetrics metrics = ExportMetrics.current();
+    long t = metrics.start();
+    output.sync();
+    metrics.stop(EStage.WRITE, t);
+  }
+
+  @Override
+  public long getPosition() {
+    return output.getPosition();
+  }
+
+  @Override
+  public boolean truncate(long length) {
+    return output.truncate(length);
+  }
+
+  @Override
+  public void close() {
+    output.close();
+  }
+
+  private void firstRow() {
+    if (!written) {
+      written = true;
+      ExportMetrics metrics = ExportMetrics.get();
+      if (metrics != null) {
+        metrics.firstRow();
+      }
+    }
+  }
+
+  private static int utf8Length(String str) {
+    int bytes = str.length();
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c >= 0x80) {
+        bytes += extraBytes(c);
+      }
+    }
+    return bytes;
+  }
+
+  private static int utf8Length(char[] buf, int offset, int length) {
+    int bytes = length;
+    for (int i = offset; i < offset + length; i++) {
+      char c = buf[i];
+      if (c >= 0x80) {
+        bytes += extraBytes(c);
+      }
+    }
+    return bytes;
+  }
+
+  // A surrogate pair is 4 bytes, split as 2 over its two chars
+  private static int extraBytes(char c) {
+    return c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+  }
+}
@@ -0,0 +1,183 @@
+package example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and counters of one exported table. Code on the export path
+ * times a stage with
+ *
+ * <pre>
+ *   long t = metrics.start();
+ *   ...
+ *   metrics.stop(EStage.QUERY, t);
+ * </pre>
+ *
+ * and loops chain {@link #lap(EStage, long)} so each row costs a single
+ * clock read. The {@link #NOOP} instance, handed out while metrics are
+ * off, skips the clock altogether.
+ */
+public class TableMetrics implements TableMetricsMBean {
+
+  /**
+   * Metrics that record nothing.
+   */
+  public static final TableMetrics NOOP = new TableMetrics(null, false);
+
+  private final String table;
+  private final boolean enabled;
+  private final Histogram[] stages;
+
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final AtomicLong allocatedBytes = new AtomicLong();
+  private final AtomicLong elapsedNanos = new AtomicLong();
+
+  TableMetrics(String table) {
+    this(table, true);
+  }
+
+  private TableMetrics(String table, boolean enabled) {
+    this.table = table;
+    this.enabled = enabled;
+    this.stages = new Histogram[EStage.values().length];
+    if (enabled) {
+      for (int i = 0; i < stages.length; i++) {
+        stages[i] = new Histogram();
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the clock to hand to {@link #stop(EStage, long)}.
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records the time since <code>start</code> against <code>stage</code>.
+   */
+  public void stop(EStage stage, long start) {
+    if (enabled) {
+      stages[stage.ordinal()].record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records the time since <code>start</code> against <code>stage</code>
+   * and returns the clock, to start the next measurement with.
+   */
+  public long lap(EStage stage, long start) {
+    if (!enabled) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    stages[stage.ordinal()].record(now - start);
+    return now;
+  }
+
+  public void addBytes(long bytes) {
+    if (enabled) {
+      bytesWritten.addAndGet(bytes);
+    }
+  }
+
+  /**
+   * Returns the bytes allocated so far by the calling thread, to hand
+   * to {@link #finish(long, long)}.
+   */
+  public long allocated() {
+    return enabled ? ExportMetrics.threadAllocatedBytes() : 0;
+  }
+
+  /**
+   * Adds the wall time and the bytes allocated by the calling thread
+   * since <code>start</code> and <code>allocated</code>.
+   */
+  public void finish(long start, long allocated) {
+    if (enabled) {
+      elapsedNanos.addAndGet(System.nanoTime() - start);
+      long now = ExportMetrics.threadAllocatedBytes();
+      if (now >= 0 && allocated >= 0) {
+        allocatedBytes.addAndGet(now - allocated);
+      }
+    }
+  }
+
+  public Histogram getStage(EStage stage) {
+    return enabled ? stages[stage.ordinal()] : null;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Rows fetched, one per {@link EStage#FETCH} measurement.
+   */
+  @Override
+  public long getRows() {
+    return enabled ? stages[EStage.FETCH.ordinal()].getCount() : 0;
+  }
+
+  @Override
+  public double getRowsPerSecond() {
+    long nanos = elapsedNanos.get();
+    return nanos == 0 ? 0 : getRows() * 1e9 / nanos;
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten.get();
+  }
+
+  /**
+   * Bytes allocated by the threads that exported this table, or 0 when
+   * the JVM cannot tell.
+   */
+  @Override
+  public long getAllocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  @Override
+  public double getElapsedMillis() {
+    return elapsedNanos.get() / 1e6;
+  }
+
+  @Override
+  public String getStagesJson() {
+    StringBuilder sb = new StringBuilder();
+    appendStages(sb);
+    return sb.toString();
+  }
+
+  void appendJson(StringBuilder sb) {
+    sb.append("{\"rows\":").append(getRows())
+      .append(",\"elapsedMs\":").append(Math.round(getElapsedMillis() * 1000) / 1000.0)
+      .append(",\"rowsPerSecond\":").append(Math.round(getRowsPerSecond() * 10) / 10.0)
+      .append(",\"bytesWritten\":").append(getBytesWritten())
+      .append(",\"allocatedBytes\":").append(getAllocatedBytes())
+      .append(",\"stages\":");
+    appendStages(sb);
+    sb.append('}');
+  }
+
+  private void appendStages(StringBuilder sb) {
+    sb.append('{');
+    if (enabled) {
+      for (EStage stage : EStage.values()) {
+        if (stage.ordinal() > 0) {
+          sb.append(',');
+        }
+        sb.append('"').append(stage.name().toLowerCase()).append("\":");
+        stages[stage.ordinal()].appendJson(sb);
+      }
+    }
+    sb.append('}');
+  }
+}
@@ -0,0 +1,24 @@
+package example.metrics;
+
+/**
+ * JMX view of the metrics of one table.
+ */
+public interface TableMetricsMBean {
+
+  String getTable();
+
+  long getRows();
+
+  double getRowsPerSecond();
+
+  long getBytesWritten();
+
+  long getAllocatedBytes();
+
+  double getElapsedMillis();
+
+  /**
+   * Per stage count, total, mean, p50/p90/p99 and max as JSON.
+   */
+  String getStagesJson();
+}
@@ -0,0 +1,87 @@
+package example.seed;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates <code>(breedId, colorId)</code> pairs for new dog rows as
+ * they are loaded, so no more than a batch is ever held in memory.
+ * Each loader thread gets its own instance.
+ */
+public class DogRows {
+
+  private final int[] breedIds;
+  private final int[] colorIds;
+  private final IKeySampler breeds;
+  private final IKeySampler colors;
+  private final SplittableRandom random;
+  private long remaining;
+  private long id;
+  private int breedId;
+  private int colorId;
+
+  /**
+   * @param breedIds Existing breed keys, in order of popularity
+   * @param colorIds Existing color keys, in order of popularity
+   * @param firstId Id of the first row, the others follow it
+   * @param count Number of rows to generate
+   */
+  public DogRows(int[] breedIds, int[] colorIds, IKeySampler breeds, IKeySampler colors,
+                 long seed, long firstId, long count) {
+    this.breedIds = breedIds;
+    this.colorIds = colorIds;
+    this.breeds = breeds;
+    this.colors = colors;
+    this.random = new SplittableRandom(seed);
+    this.remaining = count;
+    this.id = firstId - 1;
+  }
+
+  /**
+   * Moves to the next row.
+   *
+   * @return False when every row has been generated
+   */
+  public boolean next() {
+    if (remaining <= 0) {
+      return false;
+    }
+    remaining--;
+    id++;
+    breedId = breedIds[breeds.next(random)];
+    colorId = colorIds[colors.next(random)];
+    return true;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public int getBreedId() {
+    return breedId;
+  }
+
+  public int getColorId() {
+    return colorId;
+  }
+
+  public long getRemaining() {
+    return remaining;
+  }
+
+  /**
+   * Generates the next rows into <code>ids</code>, <code>breeds</code>
+   * and <code>colors</code>, as many as they hold.
+   *
+   * @return Number of rows generated, 0 when there are none left
+   */
+  public int fill(long[] ids, int[] breeds, int[] colors) {
+    int n = 0;
+    while (n < breeds.length && next()) {
+      ids[n] = id;
+      breeds[n] = breedId;
+      colors[n] = colorId;
+      n++;
+    }
+    return n;
+  }
+}
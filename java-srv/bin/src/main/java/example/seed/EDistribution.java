@@ -0,0 +1,49 @@
+package example.seed;
+
+import java.util.Arrays;
+
+/**
+ * How often each breed and color key is used by the seeded dogs.
+ */
+public enum EDistribution {
+  /**
+   * Every key equally often.
+   */
+  UNIFORM(){
+    @Override
+    public IKeySampler sampler(int n, double skew) {
+      return random -> random.nextInt(n);
+    }
+  },
+  /**
+   * Key of rank k used in proportion to 1 / k^skew, so a few keys are
+   * hot and most are rare, the way real lookups tend to be.
+   */
+  ZIPF(){
+    @Override
+    public IKeySampler sampler(int n, double skew) {
+      double[] cdf = new double[n];
+      double sum = 0;
+      for (int k = 0; k < n; k++) {
+        sum += 1 / Math.pow(k + 1, skew);
+        cdf[k] = sum;
+      }
+      for (int k = 0; k < n; k++) {
+        cdf[k] /= sum;
+      }
+      return random -> {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        // Not found gives -(insertion point) - 1
+        i = i < 0 ? -i - 1 : i;
+        return Math.min(i, n - 1);
+      };
+    }
+  };
+
+  /**
+   * Returns a sampler over <code>n</code> keys.
+   *
+   * @param skew Exponent of {@link #ZIPF}, ignored by {@link #UNIFORM}
+   */
+  public abstract IKeySampler sampler(int n, double skew);
+}
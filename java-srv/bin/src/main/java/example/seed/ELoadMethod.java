@@ -0,0 +1,147 @@
+package example.seed;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.log4j.Logger;
+
+/**
+ * How {@link Seeder} sends the generated dog rows to the server, one
+ * batch per statement and commit. A batch that loses a deadlock to
+ * another loader is rolled back and sent again.
+ */
+public enum ELoadMethod {
+  /**
+   * Batched prepared inserts. With <code>rewriteBatchedStatements=true</code>
+   * on the URL the driver sends each batch as one multi-row
+   * <code>INSERT</code>.
+   */
+  BATCH(1000){
+    @Override
+    void insert(Connection conn, long[] ids, int[] breedIds, int[] colorIds, int n) throws SQLException {
+      try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO dog (id, breedId, colorId) VALUES (?, ?, ?)")) {
+        for (int i = 0; i < n; i++) {
+          stmt.setLong(1, ids[i]);
+          stmt.setInt(2, breedIds[i]);
+          stmt.setInt(3, colorIds[i]);
+          stmt.addBatch();
+        }
+        stmt.executeBatch();
+      }
+    }
+  },
+  /**
+   * <code>LOAD DATA LOCAL INFILE</code> fed with the batch as tab
+   * separated text from memory instead of a file. Needs
+   * <code>allowLoadLocalInfile=true</code> on the URL and
+   * <code>local_infile</code> on the server. The loads only run in
+   * parallel with <code>innodb_autoinc_lock_mode=2</code>, otherwise
+   * they take turns.
+   */
+  LOAD_DATA(10000){
+    @Override
+    void insert(Connection conn, long[] ids, int[] breedIds, int[] colorIds, int n) throws SQLException {
+      StringBuilder sb = new StringBuilder(n * 20);
+      for (int i = 0; i < n; i++) {
+        sb.append(ids[i]).append('\t').append(breedIds[i]).append('\t').append(colorIds[i]).append('\n');
+      }
+      byte[] tsv = sb.toString().getBytes(StandardCharsets.US_ASCII);
+      try (Statement stmt = conn.createStatement()) {
+        // The file name is not read, the driver sends the stream
+        stmt.unwrap(com.mysql.cj.jdbc.JdbcStatement.class).setLocalInfileInputStream(new ByteArrayInputStream(tsv));
+        if (isInterleaved(stmt)) {
+          stmt.executeUpdate("LOAD DATA LOCAL INFILE 'dog.tsv' INTO TABLE dog (id, breedId, colorId)");
+        } else {
+          // Concurrent loads deadlock on the table AUTO-INC lock, so
+          // only the generation of the rows runs in parallel
+          synchronized (AUTO_INC_LOCK) {
+            stmt.executeUpdate("LOAD DATA LOCAL INFILE 'dog.tsv' INTO TABLE dog (id, breedId, colorId)");
+          }
+        }
+      }
+    }
+
+    private boolean isInterleaved(Statement stmt) throws SQLException {
+      try (ResultSet rs = stmt.executeQuery("SELECT @@innodb_autoinc_lock_mode")) {
+        return rs.next() && rs.getInt(1) == 2;
+      }
+    }
+  };
+
+  private static final Logger logger = Logger.getLogger(ELoadMethod.class);
+
+  private static final Object AUTO_INC_LOCK = new Object();
+
+  private static final int MAX_RETRIES = 10;
+  private static final long BACKOFF_MS = 50;
+
+  private final int defaultBatchSize;
+
+  ELoadMethod(int defaultBatchSize) {
+    this.defaultBatchSize = defaultBatchSize;
+  }
+
+  /**
+   * Returns the rows per batch used when none is given.
+   */
+  public int getDefaultBatchSize() {
+    return defaultBatchSize;
+  }
+
+  /**
+   * Inserts every row of <code>rows</code>.
+   *
+   * @param conn Connection with auto commit off
+   * @param batchSize Rows per statement and commit
+   * @return Number of rows inserted
+   */
+  public long load(Connection conn, DogRows rows, int batchSize) throws SQLException {
+    long[] ids = new long[batchSize];
+    int[] breedIds = new int[batchSize];
+    int[] colorIds = new int[batchSize];
+    long loaded = 0;
+    int n;
+    while ((n = rows.fill(ids, breedIds, colorIds)) > 0) {
+      for (int attempt = 1; ; attempt++) {
+        try {
+          insert(conn, ids, breedIds, colorIds, n);
+          conn.commit();
+          break;
+        } catch (SQLException e) {
+          conn.rollback();
+          // 40001 is a deadlock or lock wait the server rolled back
+          if (!"40001".equals(e.getSQLState()) || attempt == MAX_RETRIES) {
+            throw e;
+          }
+          logger.warn("Batch of " + n + " dogs lost a deadlock, sending it again");
+          backOff(attempt);
+        }
+      }
+      loaded += n;
+    }
+    return loaded;
+  }
+
+  /**
+   * Waits a random time that grows with every attempt, so the loaders
+   * that deadlocked do not meet again straight away.
+   */
+  private static void backOff(int attempt) {
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_MS * attempt + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Sends the first <code>n</code> rows without committing them.
+   */
+  abstract void insert(Connection conn, long[] ids, int[] breedIds, int[] colorIds, int n) throws SQLException;
+}
@@ -0,0 +1,13 @@
+package example.seed;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks keys out of <code>n</code> according to an {@link EDistribution}.
+ */
+public interface IKeySampler {
+  /**
+   * Returns an index from 0 to n - 1.
+   */
+  int next(SplittableRandom random);
+}
@@ -0,0 +1,231 @@
+package example.seed;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Fills the animal database with generated rows for scale tests:
+ * <code>--breeds</code> and <code>--colors</code> new lookup rows, then
+ * <code>--dogs</code> dogs whose keys follow <code>--distribution</code>
+ * (UNIFORM or ZIPF with <code>--skew</code>). The dogs are loaded over
+ * <code>--threads</code> connections at once with <code>--method</code>
+ * BATCH or LOAD_DATA, <code>--batchSize</code> rows per commit. The
+ * rows/s of each step are logged.
+ *
+ * <pre>mvn exec:java@seed -Dexec.args="--dogs=5000000 --method=LOAD_DATA"</pre>
+ *
+ * <p>The triggers of changeset 009 log every new row for the
+ * materialized view; <code>--refresh</code> applies the log afterwards.</p>
+ */
+public class Seeder {
+
+  private static final Logger logger = Logger.getLogger(Seeder.class);
+
+  public static final String DEFAULT_URL = "jdbc:mysql://db/animal?user=maria&password=pass"
+      + "&rewriteBatchedStatements=true&allowLoadLocalInfile=true";
+
+  // Lookup names are VARCHAR(10)
+  private static final String BREED_PREFIX = "Breed";
+  private static final String COLOR_PREFIX = "Color";
+
+  private final String connectionStr;
+  private final int threads;
+  private final ELoadMethod method;
+  private final int batchSize;
+
+  /**
+   * @param threads Connections loading dogs at the same time
+   * @param batchSize Rows per statement and commit, less than 1 for the default of <code>method</code>
+   */
+  public Seeder(final String connectionStr, final int threads, final ELoadMethod method, final int batchSize)
+  {
+    this.connectionStr = connectionStr;
+    this.method = method;
+    if (threads < 1) {
+      logger.warn("Invalid number of seed threads. Using default!");
+      this.threads = 1;
+    } else {
+      this.threads = threads;
+    }
+    this.batchSize = batchSize < 1 ? method.getDefaultBatchSize() : batchSize;
+  }
+
+  public static void main(String[] args) {
+    final example.Options options = example.Options.parse(args);
+    final ELoadMethod method = options.getEnum("method", ELoadMethod.class, ELoadMethod.BATCH);
+    Seeder seeder = new Seeder(options.get("url", DEFAULT_URL), options.getInt("threads", 4), method,
+        options.getInt("batchSize", 0));
+
+    seeder.seedLookup("breedLookup", "breed", BREED_PREFIX, options.getInt("breeds", 2000));
+    seeder.seedLookup("colorLookup", "color", COLOR_PREFIX, options.getInt("colors", 200));
+    seeder.seedDogs(options.getLong("dogs", 1000000),
+        options.getEnum("distribution", EDistribution.class, EDistribution.UNIFORM),
+        options.getDouble("skew", 1.0), options.getLong("seed", 42));
+
+    if (options.getBoolean("refresh", false)) {
+      long start = System.nanoTime();
+      long rows = new example.db.mv.DogExpandedRefresher(seeder.connectionStr,
+          options.getInt("refreshBatchSize", example.db.mv.DogExpandedRefresher.DEFAULT_BATCH_SIZE)).refresh();
+      logger.info(rate("Refreshed", rows, "dog_expanded_mv rows", start));
+    }
+    example.db.pool.ConnectionPool.shutdownAll();
+    org.apache.log4j.LogManager.shutdown();
+  }
+
+  /**
+   * Adds <code>count</code> rows named <code>prefix</code> plus a base 36
+   * sequence number to a lookup table.
+   *
+   * @return Number of rows inserted
+   */
+  public long seedLookup(String table, String column, String prefix, int count) {
+    if (count < 1) {
+      return 0;
+    }
+    long start = System.nanoTime();
+    long inserted = 0;
+    try (Connection conn = connect()) {
+      long first = count(conn, table);
+      try (PreparedStatement stmt = conn.prepareStatement(
+          "INSERT INTO " + table + " (" + column + ") VALUES (?)")) {
+        for (int i = 0; i < count; i++) {
+          stmt.setString(1, prefix + Long.toString(first + i, 36));
+          stmt.addBatch();
+          if ((i + 1) % batchSize == 0 || i == count - 1) {
+            stmt.executeBatch();
+            conn.commit();
+          }
+        }
+      }
+      inserted = count;
+    } catch (SQLException e) {
+      logger.error(e.getMessage());
+    }
+    logger.info(rate("Seeded", inserted, table + " rows", start));
+    return inserted;
+  }
+
+  /**
+   * Adds <code>count</code> dogs spread over the lookup keys as
+   * <code>distribution</code> says, loaded over several connections.
+   *
+   * @return Number of rows inserted
+   */
+  public long seedDogs(long count, EDistribution distribution, double skew, long seed) {
+    if (count < 1) {
+      return 0;
+    }
+    int[] breedIds;
+    int[] colorIds;
+    long firstId;
+    try (Connection conn = connect()) {
+      breedIds = ids(conn, "breedLookup");
+      colorIds = ids(conn, "colorLookup");
+      firstId = maxId(conn, "dog") + 1;
+    } catch (SQLException e) {
+      logger.error(e.getMessage());
+      return 0;
+    }
+    if (breedIds.length == 0 || colorIds.length == 0) {
+      logger.error("No breeds or colors to give the dogs!");
+      return 0;
+    }
+    IKeySampler breeds = distribution.sampler(breedIds.length, skew);
+    IKeySampler colors = distribution.sampler(colorIds.length, skew);
+
+    long start = System.nanoTime();
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "seeder-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    List<Future<Long>> parts = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      long share = count / threads + (t < count % threads ? 1 : 0);
+      DogRows rows = new DogRows(breedIds, colorIds, breeds, colors, seed + t, firstId, share);
+      parts.add(executor.submit(() -> load(rows)));
+      firstId += share;
+    }
+
+    long inserted = 0;
+    for (Future<Long> part : parts) {
+      try {
+        inserted += part.get();
+      } catch (Exception e) {
+        logger.error("Seeding dogs failed: " + e.getMessage());
+      }
+    }
+    executor.shutdown();
+    logger.info(rate("Seeded", inserted, "dog rows with " + method + " over " + threads + " connections ("
+        + distribution + ")", start));
+    return inserted;
+  }
+
+  private long load(DogRows rows) throws SQLException {
+    long start = System.nanoTime();
+    try (Connection conn = connect()) {
+      long loaded = method.load(conn, rows, batchSize);
+      logger.info(rate(Thread.currentThread().getName() + " loaded", loaded, "dog rows", start));
+      return loaded;
+    }
+  }
+
+  private Connection connect() throws SQLException {
+    Connection conn = DriverManager.getConnection(connectionStr);
+    conn.setAutoCommit(false);
+    // No gap locks, which the loaders would otherwise deadlock on
+    conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+    return conn;
+  }
+
+  private static long count(Connection conn, String table) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+
+  private static long maxId(Connection conn, String table) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+
+  private static int[] ids(Connection conn, String table) throws SQLException {
+    int[] ids = new int[1024];
+    int n = 0;
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT id FROM " + table + " ORDER BY id")) {
+      while (rs.next()) {
+        if (n == ids.length) {
+          ids = Arrays.copyOf(ids, n * 2);
+        }
+        ids[n++] = rs.getInt(1);
+      }
+    }
+    return Arrays.copyOf(ids, n);
+  }
+
+  private static String rate(String what, long rows, String unit, long startNanos) {
+    long nanos = System.nanoTime() - startNanos;
+    double seconds = nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    return String.format("%s %d %s in %.3f s, %.0f rows/s", what, rows, unit, seconds,
+        seconds > 0 ? rows / seconds : 0);
+  }
+}